@@ -0,0 +1,175 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Registry;
+import org.bukkit.block.Biome;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mengelompokkan setiap biome ke bitmask BiomeFamily sekali saat startup, dari
+ * registry biome. Setelah itu pengecekan biome hanya berupa operasi bit dan lookup
+ * tabel per family, tanpa string matching di hot path.
+ *
+ * Biome datapack diklasifikasi lewat keyword (biomes.keywords) atau override
+ * eksplisit per key (biomes.overrides) di config.
+ */
+public class BiomeClassifier {
+
+    // Urutan saat biome masuk beberapa family dan tabel hanya boleh pilih satu, dari yang paling spesifik
+    private static final BiomeFamily[] PRIORITY = {
+            BiomeFamily.SNOWY, BiomeFamily.FROZEN, BiomeFamily.ICE,
+            BiomeFamily.DESERT, BiomeFamily.BADLANDS, BiomeFamily.JUNGLE,
+            BiomeFamily.SWAMP, BiomeFamily.DARK_FOREST, BiomeFamily.SAVANNA,
+            BiomeFamily.TAIGA, BiomeFamily.MEADOW, BiomeFamily.PLAINS,
+            BiomeFamily.OCEAN, BiomeFamily.NETHER
+    };
+
+    private final JavaPlugin plugin;
+
+    private volatile Map<BiomeFamily, List<String>> keywords = new EnumMap<>(BiomeFamily.class);
+    private volatile Map<String, Integer> overrides = new ConcurrentHashMap<>();
+    private volatile Map<Biome, Integer> families = new ConcurrentHashMap<>();
+
+    public BiomeClassifier(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Bangun ulang klasifikasi dari config dan registry biome
+     */
+    public void reload(ConfigManager configManager) {
+        Map<BiomeFamily, List<String>> newKeywords = new EnumMap<>(BiomeFamily.class);
+        Map<String, List<String>> configuredKeywords = configManager.getBiomeKeywords();
+
+        for (BiomeFamily family : BiomeFamily.values()) {
+            List<String> familyKeywords = new ArrayList<>();
+            List<String> configured = configuredKeywords.get(family.name().toLowerCase(Locale.ROOT));
+
+            if (configured != null) {
+                for (String keyword : configured) {
+                    familyKeywords.add(keyword.toUpperCase(Locale.ROOT));
+                }
+            } else {
+                familyKeywords.addAll(Arrays.asList(family.getDefaultKeywords()));
+            }
+            newKeywords.put(family, familyKeywords);
+        }
+
+        Map<String, Integer> newOverrides = new ConcurrentHashMap<>();
+        for (Map.Entry<String, List<String>> entry : configManager.getBiomeOverrides().entrySet()) {
+            int mask = 0;
+            for (String name : entry.getValue()) {
+                BiomeFamily family = BiomeFamily.fromName(name);
+                if (family != null) {
+                    mask |= family.mask();
+                } else {
+                    plugin.getLogger().warning("Unknown biome family '" + name + "' for biome " + entry.getKey());
+                }
+            }
+            newOverrides.put(entry.getKey().toLowerCase(Locale.ROOT), mask);
+        }
+
+        this.keywords = newKeywords;
+        this.overrides = newOverrides;
+
+        Map<Biome, Integer> newFamilies = new ConcurrentHashMap<>();
+        for (Biome biome : Registry.BIOME) {
+            newFamilies.put(biome, classify(biome));
+        }
+        this.families = newFamilies;
+
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info("Classified " + newFamilies.size() + " biomes into families");
+        }
+    }
+
+    /**
+     * Bitmask BiomeFamily untuk biome. Biome yang tidak ada di registry saat startup
+     * diklasifikasi saat pertama kali dilihat.
+     */
+    public int getFamilies(Biome biome) {
+        if (biome == null) {
+            return 0;
+        }
+
+        Integer mask = families.get(biome);
+        if (mask == null) {
+            mask = classify(biome);
+            families.put(biome, mask);
+        }
+        return mask;
+    }
+
+    public boolean is(Biome biome, BiomeFamily family) {
+        return (getFamilies(biome) & family.mask()) != 0;
+    }
+
+    public boolean isAny(Biome biome, BiomeFamily... candidates) {
+        int mask = getFamilies(biome);
+        for (BiomeFamily family : candidates) {
+            if ((mask & family.mask()) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ambil entry tabel untuk family biome. Jika biome masuk beberapa family,
+     * family paling spesifik yang punya entry yang dipakai.
+     */
+    public <T> T select(Biome biome, Map<BiomeFamily, T> table, T fallback) {
+        int mask = getFamilies(biome);
+        if (mask == 0) {
+            return fallback;
+        }
+
+        for (BiomeFamily family : PRIORITY) {
+            if ((mask & family.mask()) != 0) {
+                T value = table.get(family);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private int classify(Biome biome) {
+        String key = keyOf(biome);
+
+        Integer override = overrides.get(key);
+        if (override != null) {
+            return override;
+        }
+
+        // Keyword hanya dicocokkan dengan path, namespace datapack diabaikan
+        String name = key.substring(key.indexOf(':') + 1).toUpperCase(Locale.ROOT);
+        int mask = 0;
+        for (Map.Entry<BiomeFamily, List<String>> entry : keywords.entrySet()) {
+            for (String keyword : entry.getValue()) {
+                if (name.contains(keyword)) {
+                    mask |= entry.getKey().mask();
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private String keyOf(Biome biome) {
+        try {
+            return biome.getKey().toString().toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            // Biome.CUSTOM tidak punya key
+            return biome.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
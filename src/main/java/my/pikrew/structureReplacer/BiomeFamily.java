@@ -0,0 +1,47 @@
+package my.pikrew.structureReplacer;
+
+/**
+ * Kelompok biome yang dipakai untuk deteksi, palette dan mapping material.
+ * Satu biome bisa masuk beberapa family sekaligus (misalnya snowy_taiga).
+ */
+public enum BiomeFamily {
+    PLAINS("PLAINS"),
+    MEADOW("MEADOW"),
+    DESERT("DESERT"),
+    BADLANDS("BADLANDS"),
+    SAVANNA("SAVANNA"),
+    SNOWY("SNOWY"),
+    FROZEN("FROZEN"),
+    ICE("ICE"),
+    TAIGA("TAIGA"),
+    JUNGLE("JUNGLE"),
+    SWAMP("SWAMP"),
+    OCEAN("OCEAN", "SEA"),
+    DARK_FOREST("DARK_FOREST", "ROOFED_FOREST"),
+    NETHER("NETHER");
+
+    private final String[] defaultKeywords;
+
+    BiomeFamily(String... defaultKeywords) {
+        this.defaultKeywords = defaultKeywords;
+    }
+
+    /**
+     * Keyword bawaan yang dicocokkan dengan nama biome (path key, huruf besar)
+     */
+    public String[] getDefaultKeywords() {
+        return defaultKeywords;
+    }
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public static BiomeFamily fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
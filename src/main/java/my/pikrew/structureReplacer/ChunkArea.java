@@ -0,0 +1,122 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot gabungan untuk satu batch chunk yang berdekatan plus satu cincin
+ * tetangga. Setiap chunk hanya di-snapshot sekali, lalu dipakai bersama oleh
+ * semua ChunkScan di batch dan oleh analisis terrain, jadi bacaan di perbatasan
+ * chunk tidak diulang.
+ */
+public class ChunkArea {
+
+    private final World world;
+    private final int minHeight;
+    private final int maxHeight;
+    private final Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+    // Chunk batch yang di-snapshot dengan biome
+    private final Set<Long> withBiomes = new HashSet<>();
+
+    private ChunkArea(World world) {
+        this.world = world;
+        this.minHeight = world.getMinHeight();
+        this.maxHeight = world.getMaxHeight();
+    }
+
+    /**
+     * Snapshot semua chunk batch (dengan biome) dan tetangga dalam ring chunk yang
+     * sudah loaded. Harus dipanggil dari main thread.
+     */
+    public static ChunkArea capture(World world, Collection<Chunk> chunks, int ring) {
+        ChunkArea area = new ChunkArea(world);
+
+        for (Chunk chunk : chunks) {
+            long key = key(chunk.getX(), chunk.getZ());
+            area.snapshots.put(key, chunk.getChunkSnapshot(true, true, false));
+            area.withBiomes.add(key);
+        }
+
+        for (Chunk chunk : chunks) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    int x = chunk.getX() + dx;
+                    int z = chunk.getZ() + dz;
+                    long key = key(x, z);
+
+                    // Heightmap ikut disalin supaya ground level bisa dihitung dari snapshot
+                    if (!area.snapshots.containsKey(key) && world.isChunkLoaded(x, z)) {
+                        area.snapshots.put(key, world.getChunkAt(x, z).getChunkSnapshot(true, false, false));
+                    }
+                }
+            }
+        }
+
+        return area;
+    }
+
+    public ChunkSnapshot getSnapshot(int chunkX, int chunkZ) {
+        return snapshots.get(key(chunkX, chunkZ));
+    }
+
+    /**
+     * Apakah semua chunk yang mencakup kotak block (inklusif) ada di area
+     */
+    public boolean covers(int minX, int minZ, int maxX, int maxZ) {
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!snapshots.containsKey(key(chunkX, chunkZ))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Material pada koordinat world, atau null jika di luar area
+     */
+    public Material getType(int x, int y, int z) {
+        if (y < minHeight || y >= maxHeight) {
+            return null;
+        }
+        ChunkSnapshot snapshot = getSnapshot(x >> 4, z >> 4);
+        return snapshot == null ? null : snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * Level tanah dari snapshot; pemanggil harus memastikan koordinat ada di area lewat covers()
+     */
+    public int getGroundLevel(GroundHeightService groundHeights, int x, int z) {
+        return groundHeights.getGroundLevel(getSnapshot(x >> 4, z >> 4), x & 15, z & 15, minHeight, maxHeight);
+    }
+
+    /**
+     * Biome hanya tersedia untuk chunk batch, bukan untuk cincin tetangga
+     */
+    public Biome getBiome(int x, int y, int z) {
+        long key = key(x >> 4, z >> 4);
+        return withBiomes.contains(key) ? snapshots.get(key).getBiome(x & 15, y, z & 15) : null;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
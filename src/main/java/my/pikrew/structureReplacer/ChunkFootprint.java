@@ -0,0 +1,191 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kotak chunk yang akan dibaca atau diubah oleh satu replacement job. Scheduler
+ * hanya menjalankan job jika semua chunk ini sudah loaded, dan meminta chunk
+ * yang belum loaded lewat getChunkAtAsync, supaya world.getBlockAt di dalam job
+ * tidak pernah memicu load atau generate chunk secara sync. Selama job aktif,
+ * chunk-nya bisa ditahan dengan plugin chunk ticket.
+ *
+ * Load tidak pernah men-generate chunk baru (itu akan memicu deteksi lagi dan
+ * menjalar) dan tidak memasang ticket; ticket hanya dipasang saat job diaktifkan.
+ * Chunk yang belum ada dicek lagi beberapa kali, lalu scheduler menyerah lewat
+ * isAbandoned. Hanya dipakai dari main thread.
+ */
+public class ChunkFootprint {
+
+    private final World world;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    // Jeda sebelum chunk yang belum ada dicek lagi
+    private static final int ABSENT_RETRY_TICKS = 100;
+    // Setelah sekian kali sebuah chunk tetap belum ada, footprint dianggap tidak bisa lengkap
+    private static final int MAX_ABSENT_RETRIES = 6;
+
+    // Chunk yang sedang di-load async, supaya tidak diminta berulang setiap tick
+    private final Set<Long> requested = new HashSet<>();
+    // Chunk yang belum pernah di-generate -> tick paling cepat untuk dicek lagi
+    private final Map<Long, Integer> absent = new HashMap<>();
+    // Chunk yang belum pernah di-generate -> berapa kali sudah dicek
+    private final Map<Long, Integer> absentRetries = new HashMap<>();
+    // Chunk yang sedang ditahan plugin chunk ticket milik footprint ini
+    private final Set<Long> ticketed = new HashSet<>();
+
+    public ChunkFootprint(World world, int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ) {
+        this.world = world;
+        this.minChunkX = minBlockX >> 4;
+        this.minChunkZ = minBlockZ >> 4;
+        this.maxChunkX = maxBlockX >> 4;
+        this.maxChunkZ = maxBlockZ >> 4;
+    }
+
+    /**
+     * Footprint kotak di sekitar titik: radius ke segala arah, plus extra ke arah x/z
+     * positif (template di-paste dari pojok minimum)
+     */
+    public static ChunkFootprint around(Location center, int radius, int extraX, int extraZ) {
+        int x = center.getBlockX();
+        int z = center.getBlockZ();
+        return new ChunkFootprint(center.getWorld(), x - radius, z - radius,
+                x + Math.max(radius, extraX), z + Math.max(radius, extraZ));
+    }
+
+    public boolean isLoaded() {
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Minta semua chunk yang belum loaded secara async, tanpa generate dan tanpa ticket.
+     * Chunk yang belum ada dicek lagi setelah ABSENT_RETRY_TICKS.
+     */
+    public void requestLoad() {
+        int tick = Bukkit.getCurrentTick();
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                long key = key(chunkX, chunkZ);
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+
+                Integer retryTick = absent.get(key);
+                if ((retryTick != null && tick < retryTick) || !requested.add(key)) {
+                    continue;
+                }
+
+                // Callback jalan di main thread; chunk yang ter-unload lagi akan diminta ulang
+                world.getChunkAtAsync(chunkX, chunkZ, false).whenComplete((chunk, error) -> {
+                    requested.remove(key);
+                    if (chunk == null) {
+                        absent.put(key, Bukkit.getCurrentTick() + ABSENT_RETRY_TICKS);
+                        absentRetries.merge(key, 1, Integer::sum);
+                    } else {
+                        absent.remove(key);
+                        absentRetries.remove(key);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Tahan semua chunk footprint dengan plugin chunk ticket supaya tidak ter-unload
+     * selama job berjalan. Chunk yang sudah ditahan dilewati.
+     */
+    public void addTickets(Plugin plugin) {
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (ticketed.add(key(chunkX, chunkZ))) {
+                    world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lepas semua ticket yang dipasang addTickets
+     */
+    public void removeTickets(Plugin plugin) {
+        for (long key : ticketed) {
+            world.removePluginChunkTicket((int) (key >> 32), (int) key, plugin);
+        }
+        ticketed.clear();
+    }
+
+    /**
+     * True jika ada chunk yang sudah MAX_ABSENT_RETRIES kali dicek dan tetap belum di-generate
+     */
+    public boolean isAbandoned() {
+        for (int retries : absentRetries.values()) {
+            if (retries >= MAX_ABSENT_RETRIES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public boolean contains(World world, int chunkX, int chunkZ) {
+        return this.world == world && chunkX >= minChunkX && chunkX <= maxChunkX
+                && chunkZ >= minChunkZ && chunkZ <= maxChunkZ;
+    }
+
+    public int getChunkCount() {
+        return (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+    }
+
+    public int getMissingCount() {
+        int missing = 0;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    missing++;
+                }
+            }
+        }
+        return missing;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getMinChunkX() {
+        return minChunkX;
+    }
+
+    public int getMinChunkZ() {
+        return minChunkZ;
+    }
+
+    public int getMaxChunkX() {
+        return maxChunkX;
+    }
+
+    public int getMaxChunkZ() {
+        return maxChunkZ;
+    }
+}
@@ -0,0 +1,116 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catatan per chunk apakah chunk sudah dianalisis atau di-replace, disimpan di
+ * PersistentDataContainer chunk supaya tetap ada setelah restart.
+ *
+ * Setiap entry menyimpan hash dari konfigurasi replacement saat itu. Jika
+ * replacement diubah, entry lama otomatis dianggap tidak berlaku dan chunk
+ * akan dianalisis ulang saat di-load sebagai chunk baru.
+ */
+public class ChunkLedger {
+
+    public enum State {
+        // Sudah dianalisis, tidak ada structure yang perlu diganti
+        SCANNED,
+        // Structure sudah ditemukan dan semua replacement-nya sudah selesai
+        REPLACED,
+        // Belum diputuskan: antrian penuh, atau replacement belum selesai atau gagal.
+        // Di-backfill saat chunk di-load lagi
+        PENDING
+    }
+
+    private final NamespacedKey ledgerKey;
+
+    // Chunk yang sedang diproses di sesi ini (populate dan load bisa datang bersamaan)
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile String configHash = "";
+
+    public ChunkLedger(JavaPlugin plugin) {
+        this.ledgerKey = new NamespacedKey(plugin, "ledger");
+    }
+
+    /**
+     * Hitung ulang hash konfigurasi. Dipanggil setiap kali replacement di-reload.
+     */
+    public void updateConfigHash(Map<String, String> replacements, String detectionSettings) {
+        // TreeMap supaya urutan key tidak mempengaruhi hash
+        String canonical = new TreeMap<>(replacements).toString() + "|" + detectionSettings;
+        configHash = Integer.toHexString(canonical.hashCode());
+    }
+
+    /**
+     * Apakah chunk sudah diputuskan untuk konfigurasi saat ini. Harus dipanggil dari main thread.
+     */
+    public boolean isDecided(Chunk chunk) {
+        String entry = chunk.getPersistentDataContainer().get(ledgerKey, PersistentDataType.STRING);
+        if (entry == null) {
+            return false;
+        }
+
+        int separator = entry.indexOf(':');
+        return separator > 0 && entry.substring(0, separator).equals(configHash) &&
+                !entry.endsWith(":" + State.PENDING.name());
+    }
+
+    /**
+     * Apakah chunk pernah dilewati karena antrian penuh. Harus dipanggil dari main thread.
+     */
+    public boolean isPending(Chunk chunk) {
+        String entry = chunk.getPersistentDataContainer().get(ledgerKey, PersistentDataType.STRING);
+        return entry != null && entry.endsWith(":" + State.PENDING.name());
+    }
+
+    /**
+     * Tandai chunk yang belum selesai diputuskan supaya dianalisis saat di-load berikutnya
+     */
+    public void markPending(Chunk chunk) {
+        chunk.getPersistentDataContainer().set(ledgerKey, PersistentDataType.STRING, configHash + ":" + State.PENDING.name());
+    }
+
+    /**
+     * Tandai chunk sedang diproses. Mengembalikan false jika chunk sudah diproses di sesi ini.
+     */
+    public boolean begin(Chunk chunk) {
+        return inFlight.add(key(chunk.getWorld(), chunk.getX(), chunk.getZ()));
+    }
+
+    /**
+     * Simpan hasil analisis dan lepas tanda in-flight. Jika chunk sudah tidak loaded,
+     * hasilnya hanya dilepas dan chunk akan dianalisis lagi saat berikutnya di-load.
+     */
+    public void record(World world, int chunkX, int chunkZ, State state) {
+        inFlight.remove(key(world, chunkX, chunkZ));
+
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return;
+        }
+
+        PersistentDataContainer container = world.getChunkAt(chunkX, chunkZ).getPersistentDataContainer();
+        container.set(ledgerKey, PersistentDataType.STRING, configHash + ":" + state.name());
+    }
+
+    /**
+     * Lepas tanda in-flight tanpa menyimpan hasil (misalnya saat deteksi gagal)
+     */
+    public void release(World world, int chunkX, int chunkZ) {
+        inFlight.remove(key(world, chunkX, chunkZ));
+    }
+
+    private String key(World world, int chunkX, int chunkZ) {
+        return world.getName() + ":" + chunkX + ":" + chunkZ;
+    }
+}
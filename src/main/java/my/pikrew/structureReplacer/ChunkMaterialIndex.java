@@ -0,0 +1,244 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+/**
+ * Histogram material untuk satu chunk, dibangun dengan satu pass dari ChunkSnapshot.
+ * Semua pengecekan deteksi membaca dari sini sehingga biaya scan tidak bertambah
+ * seiring jumlah replacement yang dikonfigurasi.
+ *
+ * Pass ini juga mencatat material apa saja yang ada di tiap section 16x16x16,
+ * supaya scanner lain bisa melewati section yang pasti tidak berisi target.
+ */
+public class ChunkMaterialIndex {
+
+    private static final int MATERIAL_COUNT = Material.values().length;
+    private static final int MASK_WORDS = (MATERIAL_COUNT + 63) >> 6;
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    private final ChunkSnapshot snapshot;
+    private final int minHeight;
+    private final int maxHeight;
+
+    // Semua array diindeks dengan Material.ordinal()
+    private final int[] counts = new int[MATERIAL_COUNT];
+    private final int[] minY = new int[MATERIAL_COUNT];
+    private final int[] maxY = new int[MATERIAL_COUNT];
+
+    // Bitmask material per section; null berarti section kosong atau tidak di-scan
+    private final long[][] sectionMasks;
+    private int firstScannedSection;
+
+    private ChunkMaterialIndex(ChunkSnapshot snapshot, int minHeight, int maxHeight) {
+        this.snapshot = snapshot;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.sectionMasks = new long[(maxHeight - minHeight) >> 4][];
+    }
+
+    /**
+     * Bangun index dengan membaca setiap block dalam snapshot tepat satu kali
+     */
+    public static ChunkMaterialIndex build(ChunkSnapshot snapshot, int minHeight, int maxHeight) {
+        return build(snapshot, minHeight, maxHeight, -1);
+    }
+
+    /**
+     * Bangun index, melewati section kosong dan section yang seluruhnya lebih dari
+     * surfaceDepth block di bawah permukaan terendah chunk. surfaceDepth negatif
+     * berarti seluruh tinggi world di-scan.
+     */
+    public static ChunkMaterialIndex build(ChunkSnapshot snapshot, int minHeight, int maxHeight, int surfaceDepth) {
+        ChunkMaterialIndex index = new ChunkMaterialIndex(snapshot, minHeight, maxHeight);
+        index.firstScannedSection = surfaceDepth < 0 ? 0 : index.findFloorSection(surfaceDepth);
+
+        for (int section = index.firstScannedSection; section < index.sectionMasks.length; section++) {
+            int sectionY = index.getSectionMinY(section);
+
+            // Section all-air tidak perlu dibaca per block
+            if (snapshot.isSectionEmpty(section)) {
+                index.recordBulk(Material.AIR, SECTION_VOLUME, sectionY, sectionY + 15);
+                continue;
+            }
+
+            long[] mask = new long[MASK_WORDS];
+            index.sectionMasks[section] = mask;
+
+            // Y di loop terluar: kemunculan pertama selalu min Y, kemunculan terakhir selalu max Y
+            for (int y = sectionY; y < sectionY + 16; y++) {
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        int id = index.record(snapshot.getBlockType(x, y, z), y);
+                        mask[id >> 6] |= 1L << id;
+                    }
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Section terendah yang masih relevan untuk structure permukaan,
+     * dihitung dari heightmap snapshot
+     */
+    private int findFloorSection(int surfaceDepth) {
+        int lowestSurface = maxHeight;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                lowestSurface = Math.min(lowestSurface, snapshot.getHighestBlockYAt(x, z));
+            }
+        }
+
+        int floorY = Math.max(minHeight, lowestSurface - surfaceDepth);
+        return Math.min((floorY - minHeight) >> 4, sectionMasks.length - 1);
+    }
+
+    private int record(Material material, int y) {
+        int id = material.ordinal();
+        if (counts[id]++ == 0) {
+            minY[id] = y;
+        }
+        maxY[id] = y;
+        return id;
+    }
+
+    private void recordBulk(Material material, int count, int fromY, int toY) {
+        int id = material.ordinal();
+        if (counts[id] == 0) {
+            minY[id] = fromY;
+        }
+        counts[id] += count;
+        maxY[id] = Math.max(maxY[id], toY);
+    }
+
+    public int count(Material material) {
+        return counts[material.ordinal()];
+    }
+
+    public boolean contains(Material material) {
+        return counts[material.ordinal()] > 0;
+    }
+
+    /**
+     * Y terendah tempat material ditemukan, atau Integer.MAX_VALUE jika tidak ada
+     */
+    public int getMinY(Material material) {
+        return contains(material) ? minY[material.ordinal()] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Y tertinggi tempat material ditemukan, atau Integer.MIN_VALUE jika tidak ada
+     */
+    public int getMaxY(Material material) {
+        return contains(material) ? maxY[material.ordinal()] : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Cek apakah material ada di antara fromY dan toY (inklusif).
+     * Hampir selalu terjawab dari rentang min/max Y; snapshot hanya dibaca
+     * jika rentang yang diminta berada sepenuhnya di dalam rentang material.
+     */
+    public boolean containsAtLevel(Material material, int fromY, int toY) {
+        if (!contains(material)) {
+            return false;
+        }
+
+        int id = material.ordinal();
+        if (maxY[id] < fromY || minY[id] > toY) {
+            return false;
+        }
+        if (minY[id] >= fromY || maxY[id] <= toY) {
+            return true;
+        }
+
+        int from = Math.max(fromY, minHeight);
+        int to = Math.min(toY, maxHeight - 1);
+        for (int y = from; y <= to; y++) {
+            if (!sectionContains(getSectionIndex(y), material)) {
+                continue;
+            }
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    if (snapshot.getBlockType(x, y, z) == material) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cek apakah minimal minRequired material dari daftar ada di chunk
+     */
+    public boolean containsAtLeast(int minRequired, Material... materials) {
+        int foundCount = 0;
+        for (Material material : materials) {
+            if (contains(material)) {
+                foundCount++;
+                if (foundCount >= minRequired) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apakah section (indeks dari bawah world) berisi material. Section kosong
+     * atau yang berada di bawah batas scan selalu menjawab false.
+     */
+    public boolean sectionContains(int section, Material material) {
+        if (section < 0 || section >= sectionMasks.length) {
+            return false;
+        }
+
+        long[] mask = sectionMasks[section];
+        if (mask == null) {
+            return material == Material.AIR && section >= firstScannedSection;
+        }
+
+        int id = material.ordinal();
+        return (mask[id >> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Section all-air yang ikut di-scan (dicatat tanpa membaca block)
+     */
+    public boolean isSectionEmpty(int section) {
+        return section >= firstScannedSection && section < sectionMasks.length && sectionMasks[section] == null;
+    }
+
+    public int getSectionCount() {
+        return sectionMasks.length;
+    }
+
+    public int getSectionIndex(int y) {
+        return (y - minHeight) >> 4;
+    }
+
+    public int getSectionMinY(int section) {
+        return minHeight + (section << 4);
+    }
+
+    /**
+     * Y terendah yang ikut di-scan saat index dibangun
+     */
+    public int getScanFloorY() {
+        return getSectionMinY(firstScannedSection);
+    }
+
+    public ChunkSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+}
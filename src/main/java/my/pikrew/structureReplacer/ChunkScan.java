@@ -0,0 +1,265 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.generator.structure.GeneratedStructure;
+import org.bukkit.generator.structure.StructurePiece;
+import org.bukkit.util.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data scan untuk satu chunk yang diambil di main thread.
+ * Berisi snapshot chunk tengah plus tetangga yang sudah loaded, sehingga
+ * deteksi bisa berjalan di thread lain tanpa menyentuh World.
+ */
+public class ChunkScan {
+
+    private final World world;
+    private final int chunkX;
+    private final int chunkZ;
+    private final int minHeight;
+    private final int maxHeight;
+    private final int radius;
+    private final int size;
+    private final ChunkSnapshot[] snapshots;
+
+    private List<StructureReference> structures;
+    private ChunkMaterialIndex materialIndex;
+    private ColumnRunIndex columnRunIndex;
+    private final Map<String, MaterialPrefixSum> prefixSums = new HashMap<>();
+    private int surfaceScanDepth = -1;
+    private SignatureMatcher.ScanState signatureState;
+
+    private ChunkScan(World world, int chunkX, int chunkZ, int radius) {
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minHeight = world.getMinHeight();
+        this.maxHeight = world.getMaxHeight();
+        this.radius = radius;
+        this.size = radius * 2 + 1;
+        this.snapshots = new ChunkSnapshot[size * size];
+    }
+
+    /**
+     * Ambil snapshot chunk dan tetangga dalam radius (dalam chunk).
+     * Harus dipanggil dari main thread. Tetangga yang belum loaded tidak
+     * di-load, bagian itu dianggap tidak diketahui saat scanning.
+     */
+    public static ChunkScan capture(Chunk chunk, int neighbourRadius) {
+        World world = chunk.getWorld();
+        ChunkScan scan = new ChunkScan(world, chunk.getX(), chunk.getZ(), neighbourRadius);
+
+        for (int dx = -neighbourRadius; dx <= neighbourRadius; dx++) {
+            for (int dz = -neighbourRadius; dz <= neighbourRadius; dz++) {
+                int index = scan.slot(dx, dz);
+
+                if (dx == 0 && dz == 0) {
+                    scan.snapshots[index] = chunk.getChunkSnapshot(true, true, false);
+                } else if (world.isChunkLoaded(chunk.getX() + dx, chunk.getZ() + dz)) {
+                    scan.snapshots[index] = world.getChunkAt(chunk.getX() + dx, chunk.getZ() + dz)
+                            .getChunkSnapshot(false, false, false);
+                }
+            }
+        }
+
+        return scan;
+    }
+
+    /**
+     * Sama seperti capture, plus salinan data structure start yang mereferensikan chunk ini
+     */
+    public static ChunkScan captureWithStructures(Chunk chunk, int neighbourRadius) {
+        ChunkScan scan = capture(chunk, neighbourRadius);
+        scan.structures = copyStructures(chunk);
+        return scan;
+    }
+
+    /**
+     * Hanya data structure start, tanpa snapshot block. Cukup jika semua replacement
+     * dideteksi oleh backend structure start; method yang membaca block tidak boleh dipakai.
+     */
+    public static ChunkScan captureStructures(Chunk chunk) {
+        ChunkScan scan = new ChunkScan(chunk.getWorld(), chunk.getX(), chunk.getZ(), 0);
+        scan.structures = copyStructures(chunk);
+        return scan;
+    }
+
+    private static List<StructureReference> copyStructures(Chunk chunk) {
+        List<StructureReference> structures = new ArrayList<>();
+
+        for (GeneratedStructure generated : chunk.getStructures()) {
+            BoundingBox startPiece = null;
+            for (StructurePiece piece : generated.getPieces()) {
+                // Piece pertama adalah start piece (misalnya town center village)
+                startPiece = piece.getBoundingBox().clone();
+                break;
+            }
+
+            structures.add(new StructureReference(generated.getStructure().getKey().toString(),
+                    generated.getBoundingBox().clone(), startPiece));
+        }
+        return structures;
+    }
+
+    /**
+     * Scan untuk satu chunk batch, memakai snapshot yang sudah diambil ChunkArea.
+     * Tidak menyentuh World, jadi aman dipanggil dari thread manapun.
+     */
+    public static ChunkScan fromArea(ChunkArea area, int chunkX, int chunkZ, int neighbourRadius) {
+        ChunkScan scan = new ChunkScan(area.getWorld(), chunkX, chunkZ, neighbourRadius);
+
+        for (int dx = -neighbourRadius; dx <= neighbourRadius; dx++) {
+            for (int dz = -neighbourRadius; dz <= neighbourRadius; dz++) {
+                scan.snapshots[scan.slot(dx, dz)] = area.getSnapshot(chunkX + dx, chunkZ + dz);
+            }
+        }
+
+        return scan;
+    }
+
+    private int slot(int dx, int dz) {
+        return (dx + radius) * size + (dz + radius);
+    }
+
+    /**
+     * Material pada koordinat world, atau null jika di luar area yang di-snapshot
+     */
+    public Material getType(int x, int y, int z) {
+        if (y < minHeight || y >= maxHeight) {
+            return null;
+        }
+
+        int dx = (x >> 4) - chunkX;
+        int dz = (z >> 4) - chunkZ;
+        if (dx < -radius || dx > radius || dz < -radius || dz > radius) {
+            return null;
+        }
+
+        ChunkSnapshot snapshot = snapshots[slot(dx, dz)];
+        return snapshot == null ? null : snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * Histogram material chunk tengah, dibangun saat pertama kali dibutuhkan
+     */
+    public ChunkMaterialIndex getMaterialIndex() {
+        if (materialIndex == null) {
+            materialIndex = ChunkMaterialIndex.build(getSnapshot(), minHeight, maxHeight, surfaceScanDepth);
+        }
+        return materialIndex;
+    }
+
+    /**
+     * Run-length per kolom chunk tengah, dibangun saat detector pertama membutuhkannya
+     */
+    public ColumnRunIndex getColumnRunIndex() {
+        if (columnRunIndex == null) {
+            columnRunIndex = ColumnRunIndex.build(getMaterialIndex());
+        }
+        return columnRunIndex;
+    }
+
+    /**
+     * Summed-area table untuk material yang diberikan, mencakup chunk tengah plus
+     * margin block ke segala arah. Di-cache per kombinasi margin dan material.
+     */
+    public MaterialPrefixSum getPrefixSum(int margin, Material... materials) {
+        String key = margin + Arrays.toString(materials);
+        MaterialPrefixSum table = prefixSums.get(key);
+
+        if (table == null) {
+            int fromY = Math.max(minHeight, getMaterialIndex().getScanFloorY() - margin);
+            table = MaterialPrefixSum.build(this, margin, fromY, maxHeight, materials);
+            prefixSums.put(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Hasil SignatureMatcher untuk chunk ini, dipakai bersama oleh semua replacement
+     */
+    public SignatureMatcher.ScanState getSignatureState(SignatureMatcher matcher) {
+        if (signatureState == null || signatureState.owner != matcher) {
+            signatureState = new SignatureMatcher.ScanState(matcher);
+        }
+        return signatureState;
+    }
+
+    /**
+     * Batasi histogram ke section sampai depth block di bawah permukaan terendah.
+     * Nilai negatif berarti seluruh tinggi world di-scan.
+     */
+    public ChunkScan withSurfaceScanDepth(int depth) {
+        this.surfaceScanDepth = depth;
+        return this;
+    }
+
+    public boolean hasStructureData() {
+        return structures != null;
+    }
+
+    public List<StructureReference> getStructures() {
+        return structures == null ? Collections.emptyList() : structures;
+    }
+
+    public Biome getCenterBiome() {
+        return getSnapshot().getBiome(8, 64, 8);
+    }
+
+    public ChunkSnapshot getSnapshot() {
+        return snapshots[slot(0, 0)];
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public int getBlockX() {
+        return chunkX << 4;
+    }
+
+    public int getBlockZ() {
+        return chunkZ << 4;
+    }
+
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * Salinan immutable dari GeneratedStructure yang aman dibaca di thread lain
+     */
+    public static class StructureReference {
+        public final String key;
+        public final BoundingBox boundingBox;
+        public final BoundingBox startPiece;
+
+        public StructureReference(String key, BoundingBox boundingBox, BoundingBox startPiece) {
+            this.key = key;
+            this.boundingBox = boundingBox;
+            this.startPiece = startPiece;
+        }
+    }
+}
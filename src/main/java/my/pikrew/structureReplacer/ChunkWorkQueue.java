@@ -0,0 +1,504 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Satu antrian terbatas untuk semua chunk baru, di-key dengan koordinat chunk
+ * (bukan referensi Chunk, supaya chunk tidak tertahan di memory) dan dikuras oleh
+ * satu task berulang. Chunk yang siap diambil bersama lalu dikelompokkan per region
+ * kecil, jadi satu batch bisa di-snapshot dan dianalisis sekaligus.
+ *
+ * Jika antrian penuh, overflow policy menentukan nasib chunk baru: ditunda ke disk,
+ * dibuang dengan tanda PENDING di ledger, atau antrian dikuras langsung sehingga
+ * generasi chunk ikut tertahan sampai deteksinya selesai. Chunk yang ditunda atau
+ * dibuang di-backfill saat di-load lagi.
+ *
+ * Chunk yang ditunda langsung ditulis ke disk (append, di-flush sekali per tick) dan
+ * dicoba lagi begitu antrian punya ruang selama chunk-nya masih loaded. Di memory
+ * paling banyak MAX_DEFERRED_IN_MEMORY key; sisanya hanya ada di file overflow dan
+ * dibaca lagi setelah daftar di memory habis. Hanya dipakai dari main thread.
+ */
+public class ChunkWorkQueue {
+
+    // Batas key tunda di memory; sisanya menunggu di file overflow
+    private static final int MAX_DEFERRED_IN_MEMORY = 16384;
+    // Jumlah key tunda yang diperiksa per tick saat mencari chunk yang masih loaded
+    private static final int DEFERRED_RETRY_SCAN = 64;
+
+    /**
+     * Penerima batch chunk per region. wait true berarti deteksi harus selesai sebelum
+     * method kembali (policy block), bukan diserahkan ke thread lain.
+     */
+    public interface BatchConsumer {
+        void accept(World world, List<Chunk> chunks, boolean wait);
+    }
+
+    public enum OverflowPolicy {
+        DEFER_TO_DISK,
+        DROP,
+        BLOCK;
+
+        public static OverflowPolicy fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return DEFER_TO_DISK;
+            }
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final ConfigManager configManager;
+    private final ChunkLedger ledger;
+    private final BatchConsumer consumer;
+    private final PlayerProximity proximity;
+    private final File deferredFile;
+    private final File overflowFile;
+
+    // Urutan insert = urutan tick masuk, jadi entry paling depan yang paling lama menunggu
+    private final Map<String, QueuedChunk> queue = new LinkedHashMap<>();
+    // Koordinat yang ditunda, diproses lagi saat chunk-nya di-load atau antrian punya ruang.
+    // Isinya juga tercatat di deferredFile; baris file bisa lebih banyak sampai di-compact.
+    private final Set<String> deferred = new LinkedHashSet<>();
+    // Key baru yang belum di-append ke deferredFile / overflowFile
+    private final List<String> unflushed = new ArrayList<>();
+    private final List<String> unflushedOverflow = new ArrayList<>();
+    private int deferredFileLines;
+    private int overflowCount;
+
+    private BukkitTask task;
+    private long currentTick;
+
+    // Statistik untuk /sr status
+    private long droppedChunks;
+    private long deferredChunks;
+    private long blockedDrains;
+    private long drainedChunks;
+    private double averageWaitTicks;
+    private long maxWaitTicks;
+
+    public ChunkWorkQueue(JavaPlugin plugin, ConfigManager configManager, ChunkLedger ledger,
+                          PlayerProximity proximity, BatchConsumer consumer) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.ledger = ledger;
+        this.proximity = proximity;
+        this.consumer = consumer;
+        this.deferredFile = new File(plugin.getDataFolder(), "deferred-chunks.txt");
+        this.overflowFile = new File(plugin.getDataFolder(), "deferred-chunks-overflow.txt");
+    }
+
+    public void start() {
+        loadDeferred();
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Hentikan task. Chunk yang masih antri ikut disimpan ke disk supaya tidak hilang saat restart.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        for (String key : queue.keySet()) {
+            defer(key);
+        }
+        queue.clear();
+        flushDeferred();
+        compactDeferred();
+    }
+
+    /**
+     * Masukkan chunk ke antrian. Chunk yang sudah antri diabaikan.
+     */
+    public void add(Chunk chunk) {
+        String key = key(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        if (queue.containsKey(key)) {
+            return;
+        }
+
+        if (queue.size() >= Math.max(1, configManager.getQueueMaxSize())) {
+            switch (configManager.getQueueOverflowPolicy()) {
+                case DROP:
+                    // Ditandai di chunk, di-backfill saat chunk di-load lagi
+                    ledger.markPending(chunk);
+                    droppedChunks++;
+                    return;
+                case BLOCK:
+                    // Kuras dan deteksi sekarang tanpa menunggu jendela; main thread tertahan
+                    // sampai deteksinya selesai, jadi generasi ikut melambat
+                    blockedDrains++;
+                    drain(Math.max(1, configManager.getQueueDrainPerTick()), true);
+                    break;
+                default:
+                    // Tanda di chunk tetap ada walau key-nya hanya tersimpan di file overflow
+                    ledger.markPending(chunk);
+                    defer(key);
+                    deferredChunks++;
+                    return;
+            }
+        }
+
+        queue.put(key, new QueuedChunk(chunk.getWorld(), chunk.getX(), chunk.getZ(), currentTick));
+    }
+
+    /**
+     * Dipanggil untuk setiap chunk yang di-load: chunk yang pernah ditunda atau dibuang
+     * karena antrian penuh dimasukkan lagi.
+     */
+    public void backfill(Chunk chunk) {
+        String key = key(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        if (deferred.remove(key) || ledger.isPending(chunk)) {
+            add(chunk);
+        }
+    }
+
+    private void tick() {
+        currentTick++;
+        drain(Math.max(1, configManager.getQueueDrainPerTick()), false);
+        retryDeferred();
+        flushDeferred();
+    }
+
+    /**
+     * Masukkan lagi chunk tunda yang masih loaded selama antrian punya ruang. Paling banyak
+     * DEFERRED_RETRY_SCAN key diperiksa per tick; yang belum loaded pindah ke belakang.
+     */
+    private void retryDeferred() {
+        int room = Math.max(1, configManager.getQueueMaxSize()) - queue.size();
+        if (room <= 0) {
+            return;
+        }
+        if (deferred.isEmpty()) {
+            if (overflowCount > 0) {
+                reloadOverflow();
+            }
+            return;
+        }
+
+        List<String> notLoaded = new ArrayList<>();
+        Iterator<String> iterator = deferred.iterator();
+        for (int scanned = 0; scanned < DEFERRED_RETRY_SCAN && room > 0 && iterator.hasNext(); scanned++) {
+            String key = iterator.next();
+            iterator.remove();
+
+            int second = key.lastIndexOf(':');
+            int first = key.lastIndexOf(':', second - 1);
+            World world = first < 0 ? null : Bukkit.getWorld(key.substring(0, first));
+            if (world == null) {
+                // World sudah tidak ada atau key rusak
+                continue;
+            }
+
+            int chunkX;
+            int chunkZ;
+            try {
+                chunkX = Integer.parseInt(key.substring(first + 1, second));
+                chunkZ = Integer.parseInt(key.substring(second + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                notLoaded.add(key);
+            } else if (!queue.containsKey(key)) {
+                queue.put(key, new QueuedChunk(world, chunkX, chunkZ, currentTick));
+                room--;
+            }
+        }
+        deferred.addAll(notLoaded);
+
+        if (deferred.isEmpty()) {
+            compactDeferred();
+        }
+    }
+
+    /**
+     * Ambil sampai limit chunk yang sudah melewati jendela batch, kelompokkan per region
+     * lalu serahkan ke consumer. Chunk yang sudah ter-unload dikembalikan ke daftar tunda.
+     */
+    private void drain(int limit, boolean ignoreWindow) {
+        long window = configManager.getBatchWindowTicks();
+        int regionSize = configManager.isBatchingEnabled() ? Math.max(1, configManager.getBatchRegionSize()) : 1;
+        Map<String, List<Chunk>> regions = new LinkedHashMap<>();
+        Map<String, World> regionWorlds = new LinkedHashMap<>();
+
+        for (QueuedChunk queued : takeReady(limit, ignoreWindow ? Long.MAX_VALUE : currentTick - window)) {
+            recordWait(currentTick - queued.enqueuedTick);
+
+            if (!queued.world.isChunkLoaded(queued.chunkX, queued.chunkZ)) {
+                defer(key(queued.world, queued.chunkX, queued.chunkZ));
+                continue;
+            }
+
+            String regionKey = queued.world.getName() + ":" + Math.floorDiv(queued.chunkX, regionSize) + ":" +
+                    Math.floorDiv(queued.chunkZ, regionSize);
+            regions.computeIfAbsent(regionKey, k -> new ArrayList<>())
+                    .add(queued.world.getChunkAt(queued.chunkX, queued.chunkZ));
+            regionWorlds.put(regionKey, queued.world);
+        }
+
+        for (Map.Entry<String, List<Chunk>> region : regions.entrySet()) {
+            consumer.accept(regionWorlds.get(region.getKey()), region.getValue(), ignoreWindow);
+        }
+    }
+
+    /**
+     * Keluarkan sampai limit entry yang masuk paling lambat di readyBefore. Dengan
+     * performance.player-priority, chunk terdekat dan terlihat player diambil lebih dulu.
+     */
+    private List<QueuedChunk> takeReady(int limit, long readyBefore) {
+        List<QueuedChunk> ready = new ArrayList<>();
+        boolean byPriority = configManager.isPlayerPriorityEnabled();
+
+        for (QueuedChunk queued : queue.values()) {
+            // Entry berikutnya masuk lebih belakangan
+            if (queued.enqueuedTick > readyBefore || (!byPriority && ready.size() >= limit)) {
+                break;
+            }
+            ready.add(queued);
+        }
+
+        if (byPriority && ready.size() > limit) {
+            proximity.refresh();
+            for (QueuedChunk queued : ready) {
+                queued.priority = proximity.getPriority(queued.world, (queued.chunkX << 4) + 8, (queued.chunkZ << 4) + 8);
+            }
+            ready.sort(Comparator.comparingDouble(queued -> queued.priority));
+            ready = new ArrayList<>(ready.subList(0, limit));
+        }
+
+        for (QueuedChunk queued : ready) {
+            queue.remove(key(queued.world, queued.chunkX, queued.chunkZ));
+        }
+        drainedChunks += ready.size();
+        return ready;
+    }
+
+    private void recordWait(long waited) {
+        averageWaitTicks = averageWaitTicks * 0.95 + waited * 0.05;
+        maxWaitTicks = Math.max(maxWaitTicks, waited);
+    }
+
+    /**
+     * Catat key tunda: di memory selama masih di bawah batas, selain itu hanya di file overflow
+     */
+    private void defer(String key) {
+        if (deferred.contains(key)) {
+            return;
+        }
+        if (deferred.size() < MAX_DEFERRED_IN_MEMORY) {
+            deferred.add(key);
+            unflushed.add(key);
+        } else {
+            unflushedOverflow.add(key);
+            overflowCount++;
+        }
+    }
+
+    /**
+     * Append key tunda yang baru ke disk, sekali per tick
+     */
+    private void flushDeferred() {
+        if (!unflushed.isEmpty() && append(deferredFile, unflushed)) {
+            deferredFileLines += unflushed.size();
+            unflushed.clear();
+        }
+        if (!unflushedOverflow.isEmpty() && append(overflowFile, unflushedOverflow)) {
+            unflushedOverflow.clear();
+        }
+
+        // Baris untuk key yang sudah diproses dibuang sesekali
+        if (deferredFileLines > deferred.size() * 2 + 1024) {
+            compactDeferred();
+        }
+    }
+
+    private boolean append(File file, List<String> keys) {
+        try {
+            Files.write(file.toPath(), keys, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not save deferred chunks", e);
+            return false;
+        }
+    }
+
+    /**
+     * Tulis ulang deferredFile persis sesuai isi memory
+     */
+    private void compactDeferred() {
+        try {
+            if (deferred.isEmpty()) {
+                Files.deleteIfExists(deferredFile.toPath());
+            } else {
+                File temp = new File(deferredFile.getPath() + ".tmp");
+                Files.write(temp.toPath(), deferred, StandardCharsets.UTF_8);
+                Files.move(temp.toPath(), deferredFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            deferredFileLines = deferred.size();
+            unflushed.clear();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not save deferred chunks", e);
+        }
+    }
+
+    private void loadDeferred() {
+        if (deferredFile.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(deferredFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        defer(line);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not read deferred chunks", e);
+            }
+        }
+
+        // Baris yang masuk memory sudah ada di file; yang melewati batas pindah ke overflow
+        unflushed.clear();
+        flushDeferred();
+        compactDeferred();
+
+        overflowCount = 0;
+        if (overflowFile.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(overflowFile.toPath(), StandardCharsets.UTF_8)) {
+                while (reader.readLine() != null) {
+                    overflowCount++;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not read deferred chunks", e);
+            }
+        }
+    }
+
+    /**
+     * Pindahkan sampai MAX_DEFERRED_IN_MEMORY key dari file overflow ke memory,
+     * sisanya ditulis lagi ke file overflow tanpa membaca semuanya ke memory
+     */
+    private void reloadOverflow() {
+        flushDeferred();
+        if (!overflowFile.exists()) {
+            overflowCount = 0;
+            return;
+        }
+
+        File temp = new File(overflowFile.getPath() + ".tmp");
+        int remaining = 0;
+        try (BufferedReader reader = Files.newBufferedReader(overflowFile.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (deferred.size() < MAX_DEFERRED_IN_MEMORY) {
+                    deferred.add(line);
+                } else {
+                    writer.write(line);
+                    writer.newLine();
+                    remaining++;
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read deferred chunks", e);
+            return;
+        }
+
+        // Key yang dipindah ditulis ke deferredFile dulu, baru file overflow diganti
+        compactDeferred();
+        try {
+            if (remaining == 0) {
+                Files.deleteIfExists(temp.toPath());
+                Files.deleteIfExists(overflowFile.toPath());
+            } else {
+                Files.move(temp.toPath(), overflowFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not save deferred chunks", e);
+        }
+        overflowCount = remaining;
+    }
+
+    private static String key(World world, int chunkX, int chunkZ) {
+        return world.getName() + ":" + chunkX + ":" + chunkZ;
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Jumlah chunk tunda, termasuk perkiraan yang hanya ada di file overflow
+     */
+    public int getDeferredCount() {
+        return deferred.size() + overflowCount;
+    }
+
+    public long getDroppedChunks() {
+        return droppedChunks;
+    }
+
+    public long getDeferredChunks() {
+        return deferredChunks;
+    }
+
+    public long getBlockedDrains() {
+        return blockedDrains;
+    }
+
+    public long getDrainedChunks() {
+        return drainedChunks;
+    }
+
+    public double getAverageWaitTicks() {
+        return averageWaitTicks;
+    }
+
+    public long getMaxWaitTicks() {
+        return maxWaitTicks;
+    }
+
+    private static class QueuedChunk {
+        final World world;
+        final int chunkX;
+        final int chunkZ;
+        final long enqueuedTick;
+        double priority;
+
+        QueuedChunk(World world, int chunkX, int chunkZ, long enqueuedTick) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.enqueuedTick = enqueuedTick;
+        }
+    }
+}
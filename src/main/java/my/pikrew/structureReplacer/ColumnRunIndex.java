@@ -0,0 +1,168 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Run-length encoding material per kolom (256 kolom per chunk), dibangun sekali
+ * per snapshot. Menjawab "run vertikal terpanjang material M", "jumlah M" dan
+ * "berapa kolom berisi M" tanpa membaca ulang block.
+ */
+public class ColumnRunIndex {
+
+    private static final int MATERIAL_COUNT = Material.values().length;
+    private static final Material[] MATERIALS = Material.values();
+
+    // Run semua kolom disimpan berurutan; columnStart[c]..columnStart[c + 1] adalah run milik kolom c
+    private int[] runMaterial = new int[1024];
+    private int[] runStartY = new int[1024];
+    private int[] runLength = new int[1024];
+    private int runCount;
+    private final int[] columnStart = new int[257];
+
+    // Agregat per Material.ordinal()
+    private final int[] counts = new int[MATERIAL_COUNT];
+    private final int[] longestRun = new int[MATERIAL_COUNT];
+    private final int[] columnCounts = new int[MATERIAL_COUNT];
+
+    private ColumnRunIndex() {
+    }
+
+    /**
+     * Bangun dari snapshot milik index histogram, memakai batas scan dan
+     * informasi section kosong yang sama
+     */
+    public static ColumnRunIndex build(ChunkMaterialIndex index) {
+        ColumnRunIndex runs = new ColumnRunIndex();
+        ChunkSnapshot snapshot = index.getSnapshot();
+        int fromY = index.getScanFloorY();
+        int toY = index.getMaxHeight();
+        boolean[] seenInColumn = new boolean[MATERIAL_COUNT];
+
+        for (int column = 0; column < 256; column++) {
+            int x = column >> 4;
+            int z = column & 15;
+            runs.columnStart[column] = runs.runCount;
+
+            int currentId = -1;
+            int currentStart = fromY;
+            int y = fromY;
+
+            while (y < toY) {
+                int section = index.getSectionIndex(y);
+                int id;
+                int step;
+
+                if (index.isSectionEmpty(section)) {
+                    // Seluruh section air, lompat 16 block sekaligus
+                    id = Material.AIR.ordinal();
+                    step = 16 - ((y - index.getMinHeight()) & 15);
+                } else {
+                    id = snapshot.getBlockType(x, y, z).ordinal();
+                    step = 1;
+                }
+
+                if (id != currentId) {
+                    if (currentId >= 0) {
+                        runs.addRun(currentId, currentStart, y - currentStart, seenInColumn);
+                    }
+                    currentId = id;
+                    currentStart = y;
+                }
+                y += step;
+            }
+
+            if (currentId >= 0) {
+                runs.addRun(currentId, currentStart, toY - currentStart, seenInColumn);
+            }
+
+            // Reset penanda kolom hanya untuk material yang muncul di kolom ini
+            for (int i = runs.columnStart[column]; i < runs.runCount; i++) {
+                seenInColumn[runs.runMaterial[i]] = false;
+            }
+        }
+
+        runs.columnStart[256] = runs.runCount;
+        return runs;
+    }
+
+    private void addRun(int id, int startY, int length, boolean[] seenInColumn) {
+        if (runCount == runMaterial.length) {
+            int newSize = runCount * 2;
+            runMaterial = Arrays.copyOf(runMaterial, newSize);
+            runStartY = Arrays.copyOf(runStartY, newSize);
+            runLength = Arrays.copyOf(runLength, newSize);
+        }
+
+        runMaterial[runCount] = id;
+        runStartY[runCount] = startY;
+        runLength[runCount] = length;
+        runCount++;
+
+        counts[id] += length;
+        longestRun[id] = Math.max(longestRun[id], length);
+        if (!seenInColumn[id]) {
+            seenInColumn[id] = true;
+            columnCounts[id]++;
+        }
+    }
+
+    public int count(Material material) {
+        return counts[material.ordinal()];
+    }
+
+    /**
+     * Run vertikal terpanjang material di kolom manapun
+     */
+    public int longestRun(Material material) {
+        return longestRun[material.ordinal()];
+    }
+
+    /**
+     * Jumlah kolom yang berisi material minimal satu block (luas footprint)
+     */
+    public int columnCount(Material material) {
+        return columnCounts[material.ordinal()];
+    }
+
+    /**
+     * Jumlah kolom yang punya run material minimal minLength block
+     */
+    public int columnsWithRun(Material material, int minLength) {
+        int id = material.ordinal();
+        if (longestRun[id] < minLength) {
+            return 0;
+        }
+
+        int columns = 0;
+        for (int column = 0; column < 256; column++) {
+            for (int i = columnStart[column]; i < columnStart[column + 1]; i++) {
+                if (runMaterial[i] == id && runLength[i] >= minLength) {
+                    columns++;
+                    break;
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Material paling atas yang bukan air di kolom, atau AIR jika kolom kosong
+     */
+    public Material getTopMaterial(int x, int z) {
+        int column = (x << 4) | z;
+        for (int i = columnStart[column + 1] - 1; i >= columnStart[column]; i--) {
+            Material material = MATERIALS[runMaterial[i]];
+            if (!material.isAir()) {
+                return material;
+            }
+        }
+        return Material.AIR;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+}
@@ -0,0 +1,155 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Pre-pass murah sebelum scan penuh: cek beberapa kolom permukaan yang tersebar
+ * rata di chunk, hanya di sekitar heightmap. Jika tidak ada satu pun material
+ * penanda, chunk kemungkinan besar tidak berisi structure dan histogram penuh
+ * tidak perlu dibangun.
+ *
+ * Di mode shadow pre-pass tetap dijalankan tapi tidak menolak chunk, lalu hasilnya
+ * dibandingkan dengan deteksi penuh untuk menghitung false negative.
+ */
+public class ColumnSampler {
+
+    public enum Mode {
+        OFF,
+        // Hanya mengukur, deteksi penuh tetap berjalan
+        SHADOW,
+        // Chunk yang ditolak sample tidak di-scan penuh
+        ENFORCE;
+
+        public static Mode fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return OFF;
+            }
+        }
+    }
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // Chunk dengan structure menurut deteksi penuh (hanya diketahui di mode shadow)
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder falseNegatives = new LongAdder();
+
+    // Posisi kolom per ukuran sample, dihitung sekali
+    private volatile int sampleSize = -1;
+    private volatile int[] columns = new int[0];
+
+    /**
+     * Apakah salah satu kolom sample berisi material penanda dalam band block
+     * di atas dan di bawah permukaan
+     */
+    public boolean hasMarkers(ChunkScan scan, int sampleSize, int band, Predicate<Material> isMarker) {
+        ChunkSnapshot snapshot = scan.getSnapshot();
+        int minHeight = scan.getMinHeight();
+        int maxHeight = scan.getMaxHeight();
+        boolean found = false;
+
+        for (int column : getColumns(sampleSize)) {
+            int x = column >> 4;
+            int z = column & 15;
+            int surface = snapshot.getHighestBlockYAt(x, z);
+            int fromY = Math.max(minHeight, surface - band);
+            int toY = Math.min(maxHeight - 1, surface + band);
+
+            for (int y = toY; y >= fromY; y--) {
+                Material type = snapshot.getBlockType(x, y, z);
+                if (!type.isAir() && isMarker.test(type)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (found) {
+                break;
+            }
+        }
+
+        sampled.increment();
+        if (!found) {
+            rejected.increment();
+        }
+        return found;
+    }
+
+    /**
+     * Bandingkan hasil sample dengan deteksi penuh (mode shadow)
+     */
+    public void recordOutcome(boolean sampleHadMarkers, boolean structureFound) {
+        if (!structureFound) {
+            return;
+        }
+
+        confirmed.increment();
+        if (!sampleHadMarkers) {
+            falseNegatives.increment();
+        }
+    }
+
+    /**
+     * Kolom tersebar rata: chunk dibagi k x k sel, satu kolom di tengah setiap sel
+     * yang dipilih. Disimpan sebagai x << 4 | z.
+     */
+    private int[] getColumns(int requested) {
+        int size = Math.max(1, Math.min(256, requested));
+        if (size == sampleSize) {
+            return columns;
+        }
+
+        int cellsPerSide = (int) Math.ceil(Math.sqrt(size));
+        int cellSize = 16 / cellsPerSide;
+        int cellCount = cellsPerSide * cellsPerSide;
+        int[] selected = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            // Jika size bukan kuadrat, sel diambil dengan jarak rata
+            int cell = (int) ((long) i * cellCount / size);
+            int x = (cell / cellsPerSide) * cellSize + cellSize / 2;
+            int z = (cell % cellsPerSide) * cellSize + cellSize / 2;
+            selected[i] = x << 4 | z;
+        }
+
+        columns = selected;
+        sampleSize = size;
+        return selected;
+    }
+
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getConfirmedCount() {
+        return confirmed.sum();
+    }
+
+    public long getFalseNegativeCount() {
+        return falseNegatives.sum();
+    }
+
+    /**
+     * Bagian chunk berisi structure yang akan ditolak oleh sample
+     */
+    public double getFalseNegativeRate() {
+        long total = confirmed.sum();
+        return total == 0 ? 0 : (double) falseNegatives.sum() / total;
+    }
+
+    public void reset() {
+        sampled.reset();
+        rejected.reset();
+        confirmed.reset();
+        falseNegatives.reset();
+    }
+}
@@ -1,12 +1,17 @@
 package my.pikrew.structureReplacer;
 
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,8 +20,11 @@ public class ConfigManager {
 
     private JavaPlugin plugin;
     private File configFile;
+    private File signaturesFile;
     private FileConfiguration config;
     private Map<String, String> replacements;
+    private volatile List<DetectionSignature> signatures = DetectionSignature.builtIn();
+    private volatile int signaturesHash;
 
     // Cache untuk settings yang sering diakses
     private volatile boolean enabled = true;
@@ -28,10 +36,40 @@ public class ConfigManager {
     // Performance settings
     private volatile int chunkProcessingDelay = 5;
     private volatile int maxConcurrentReplacements = 3;
+    private volatile boolean asyncProcessing = true;
+    private volatile int asyncDetectionThreads = 2;
+    private volatile int asyncQueueSize = 256;
+    private volatile String detectionBackend = "auto";
+    private volatile int surfaceScanDepth = 48;
+    private volatile boolean placementPrefilter = true;
+    private volatile boolean adaptiveOrdering = true;
+    private volatile int reorderIntervalSeconds = 60;
+    private volatile ColumnSampler.Mode columnSamplingMode = ColumnSampler.Mode.SHADOW;
+    private volatile int columnSampleSize = 16;
+    private volatile int columnSampleBand = 12;
+    private volatile boolean heightmapGround = true;
+    private volatile boolean cacheEnabled = true;
+    private volatile double tickBudgetMillis = 5.0;
+    private volatile int blocksPerStep = 256;
+    private volatile boolean batchingEnabled = true;
+    private volatile int batchRegionSize = 4;
+    private volatile int batchWindowTicks = 10;
+    private volatile int queueMaxSize = 4096;
+    private volatile boolean playerPriority = true;
+    private volatile int queueDrainPerTick = 64;
+    private volatile ChunkWorkQueue.OverflowPolicy queueOverflowPolicy = ChunkWorkQueue.OverflowPolicy.DEFER_TO_DISK;
+    private volatile ReplacementScheduler.InFlightPolicy inFlightChunkPolicy = ReplacementScheduler.InFlightPolicy.TICKET;
+    private volatile String structurePackPath = "structures.srp";
+    private volatile boolean predictionEnabled = false;
+    private volatile int predictionIntervalTicks = 20;
+    private volatile double predictionLookaheadSeconds = 10.0;
+    private volatile double predictionMinSpeed = 8.0;
+    private volatile int predictionMaxPlans = 512;
 
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
         this.configFile = new File(plugin.getDataFolder(), "config.yml");
+        this.signaturesFile = new File(plugin.getDataFolder(), "signatures.yml");
         this.replacements = new ConcurrentHashMap<>();
 
         // Create plugin data folder if it doesn't exist
@@ -48,6 +86,7 @@ public class ConfigManager {
         config = YamlConfiguration.loadConfiguration(configFile);
         loadReplacements();
         loadCachedSettings();
+        loadSignatures();
     }
 
     public void saveConfig() {
@@ -83,7 +122,39 @@ public class ConfigManager {
         config.set("performance.chunk-processing-delay-ticks", 5);
         config.set("performance.max-concurrent-replacements", 3);
         config.set("performance.use-async-processing", true);
+        config.set("performance.async-detection-threads", 2);
+        config.set("performance.async-queue-size", 256);
+        config.set("performance.heightmap-ground-level", true);
         config.set("performance.cache-chunk-analysis", true);
+        config.set("performance.tick-budget-ms", 5.0);
+        config.set("performance.blocks-per-step", 256);
+        config.set("performance.batch.enabled", true);
+        config.set("performance.batch.region-size", 4);
+        config.set("performance.batch.window-ticks", 10);
+        config.set("performance.queue.max-size", 4096);
+        config.set("performance.player-priority", true);
+        config.set("performance.queue.drain-per-tick", 64);
+        config.set("performance.queue.overflow-policy", "defer-to-disk");
+        config.set("performance.in-flight-chunks", "ticket");
+        config.set("performance.structure-pack", "structures.srp");
+        config.set("performance.prediction.enabled", false);
+        config.set("performance.prediction.interval-ticks", 20);
+        config.set("performance.prediction.lookahead-seconds", 10.0);
+        config.set("performance.prediction.min-speed", 8.0);
+        config.set("performance.prediction.max-plans", 512);
+
+        // Detection settings
+        config.set("detection.backend", "auto");
+        config.set("detection.surface-scan-depth", 48);
+        config.set("detection.placement-prefilter", true);
+        config.set("detection.adaptive-ordering", true);
+        config.set("detection.reorder-interval-seconds", 60);
+        config.set("detection.column-sampling.mode", "shadow");
+        config.set("detection.column-sampling.sample-size", 16);
+        config.set("detection.column-sampling.band", 12);
+
+        // Biome classification
+        config.set("biomes.overrides.terralith:desert_canyon", java.util.Arrays.asList("desert", "badlands"));
 
         // Terrain blending settings
         config.set("terrain-blending.blend-radius-multiplier", 1.0);
@@ -118,6 +189,119 @@ public class ConfigManager {
         config.setComments("performance.chunk-processing-delay-ticks",
                 java.util.Arrays.asList("Delay in ticks before processing chunks (higher = less lag)"));
 
+        config.setComments("performance.max-concurrent-replacements",
+                java.util.Arrays.asList("Maximum replacements being built at the same time; the rest wait in a queue"));
+
+        config.setComments("performance.tick-budget-ms",
+                java.util.Arrays.asList("Milliseconds per tick the replacement scheduler may spend placing blocks"));
+
+        config.setComments("performance.blocks-per-step",
+                java.util.Arrays.asList("Structure blocks placed per scheduler step (smaller = smoother, slower pastes)"));
+
+        config.setComments("performance.batch",
+                java.util.Arrays.asList(
+                        "Collect new chunks into region-size x region-size regions for window-ticks, then snapshot",
+                        "and analyse each region at once so neighbouring chunks share border reads.",
+                        "window-ticks also applies with batching disabled, so chunks are fully populated first"
+                ));
+
+        config.setComments("performance.queue",
+                java.util.Arrays.asList(
+                        "Bounded queue of new chunks waiting for detection, drained by one task (drain-per-tick chunks per tick).",
+                        "overflow-policy when full: defer-to-disk (deferred-chunks.txt, retried once the queue has room),",
+                        "drop (marked in the chunk, retried when it loads again) or block (drain and detect immediately on",
+                        "the main thread, slowing chunk generation)"
+                ));
+
+        config.setComments("performance.player-priority",
+                java.util.Arrays.asList(
+                        "Process queued chunks and replacements nearest to (and in front of) online players first.",
+                        "Replacements outside every player's view distance yield their slot to visible ones."
+                ));
+
+        config.setComments("performance.in-flight-chunks",
+                java.util.Arrays.asList(
+                        "What happens to chunks used by a running replacement: ticket keeps them loaded with plugin chunk",
+                        "tickets from the moment the job starts until it finishes; cancel lets them unload, cancels jobs that",
+                        "have not started pasting yet (they are retried on backfill) and leaves the others waiting, without",
+                        "reloading, until a player loads their chunks again"
+                ));
+
+        config.setComments("performance.structure-pack",
+                java.util.Arrays.asList(
+                        "Memory-mapped structure pack built with /sr pack (relative to the plugin folder, or absolute so",
+                        "several servers on one host share the same file and page cache). Each build writes a new",
+                        "generation next to it (structures.<n>.srp) and the newest one is used. Files in structures/ override it"
+                ));
+
+        config.setComments("performance.prediction",
+                java.util.Arrays.asList(
+                        "Extrapolate the movement of fast players (min-speed blocks/second) lookahead-seconds ahead and",
+                        "prepare replacements for structure starts on the way: seed-grid candidates, biome check and the",
+                        "parsed, biome-adapted template. Only the block writes are left when the chunks generate."
+                ));
+
+        config.setComments("performance.use-async-processing",
+                java.util.Arrays.asList("Run structure detection on chunk snapshots outside the main thread"));
+
+        config.setComments("performance.async-detection-threads",
+                java.util.Arrays.asList("Detection worker threads (requires restart)"));
+
+        config.setComments("performance.heightmap-ground-level",
+                java.util.Arrays.asList(
+                        "Start ground level lookups from the server heightmap instead of the top of the world.",
+                        "Set to false to scan every column from the world height down (slow, legacy behaviour)."
+                ));
+
+        config.setComments("performance.cache-chunk-analysis",
+                java.util.Arrays.asList(
+                        "Remember analysed chunks in the chunk data so they are never scanned twice.",
+                        "Entries are invalidated automatically when the replacements change."
+                ));
+
+        config.setComments("detection.backend",
+                java.util.Arrays.asList(
+                        "How vanilla structures are found:",
+                        "- structures: exact lookup of generated structure starts",
+                        "- heuristic: block signature scanning (for custom world generators)",
+                        "- auto: structures for vanilla generation, heuristic for custom generators"
+                ));
+
+        config.setComments("detection.surface-scan-depth",
+                java.util.Arrays.asList(
+                        "Only scan chunk sections down to this many blocks below the lowest surface point.",
+                        "Surface structures never reach the deepslate layer. Use -1 to scan the full world height."
+                ));
+
+        config.setComments("detection.placement-prefilter",
+                java.util.Arrays.asList(
+                        "Skip chunks that cannot be near a structure start according to the vanilla placement grid.",
+                        "Only used in the overworld with the default generator. Disable if a datapack changes structure sets."
+                ));
+
+        config.setComments("detection.adaptive-ordering",
+                java.util.Arrays.asList(
+                        "Reorder detectors and signature requirements by measured cost and rejection rate.",
+                        "Use /sr stats to see the learned ordering."
+                ));
+
+        config.setComments("detection.column-sampling",
+                java.util.Arrays.asList(
+                        "Cheap pre-pass for heuristic detection: sample-size surface columns (of 256), checking band blocks",
+                        "above and below the heightmap for signature markers. Chunks without markers skip the full scan.",
+                        "Modes: off, shadow (measure only, see /sr stats for the false-negative rate), enforce."
+                ));
+
+        config.setComments("biomes",
+                java.util.Arrays.asList(
+                        "How biomes are grouped into families for detection, palettes and material mapping.",
+                        "biomes.keywords.<family>: list of name fragments that put a biome in that family",
+                        "  (replaces the built-in keywords for that family)",
+                        "biomes.overrides.<namespace:biome>: explicit family list for datapack biomes",
+                        "Families: plains, meadow, desert, badlands, savanna, snowy, frozen, ice, taiga,",
+                        "  jungle, swamp, ocean, dark_forest, nether"
+                ));
+
         config.setComments("replacements",
                 java.util.Arrays.asList(
                         "Structure replacements: vanilla_structure: custom_structure",
@@ -161,6 +345,197 @@ public class ConfigManager {
         structureDetectionRadius = config.getInt("performance.structure-detection-radius", 20);
         chunkProcessingDelay = config.getInt("performance.chunk-processing-delay-ticks", 5);
         maxConcurrentReplacements = config.getInt("performance.max-concurrent-replacements", 3);
+        asyncProcessing = config.getBoolean("performance.use-async-processing", true);
+        asyncDetectionThreads = config.getInt("performance.async-detection-threads", 2);
+        asyncQueueSize = config.getInt("performance.async-queue-size", 256);
+        detectionBackend = config.getString("detection.backend", "auto").toLowerCase();
+        surfaceScanDepth = config.getInt("detection.surface-scan-depth", 48);
+        placementPrefilter = config.getBoolean("detection.placement-prefilter", true);
+        adaptiveOrdering = config.getBoolean("detection.adaptive-ordering", true);
+        reorderIntervalSeconds = config.getInt("detection.reorder-interval-seconds", 60);
+        columnSamplingMode = ColumnSampler.Mode.fromName(config.getString("detection.column-sampling.mode", "shadow"));
+        columnSampleSize = config.getInt("detection.column-sampling.sample-size", 16);
+        columnSampleBand = config.getInt("detection.column-sampling.band", 12);
+        heightmapGround = config.getBoolean("performance.heightmap-ground-level", true);
+        cacheEnabled = config.getBoolean("performance.cache-chunk-analysis", true);
+        tickBudgetMillis = config.getDouble("performance.tick-budget-ms", 5.0);
+        blocksPerStep = config.getInt("performance.blocks-per-step", 256);
+        batchingEnabled = config.getBoolean("performance.batch.enabled", true);
+        batchRegionSize = config.getInt("performance.batch.region-size", 4);
+        batchWindowTicks = config.getInt("performance.batch.window-ticks", 10);
+        queueMaxSize = config.getInt("performance.queue.max-size", 4096);
+        playerPriority = config.getBoolean("performance.player-priority", true);
+        queueDrainPerTick = config.getInt("performance.queue.drain-per-tick", 64);
+        queueOverflowPolicy = ChunkWorkQueue.OverflowPolicy.fromName(config.getString("performance.queue.overflow-policy", "defer-to-disk"));
+        inFlightChunkPolicy = ReplacementScheduler.InFlightPolicy.fromName(config.getString("performance.in-flight-chunks", "ticket"));
+        structurePackPath = config.getString("performance.structure-pack", "structures.srp");
+        predictionEnabled = config.getBoolean("performance.prediction.enabled", false);
+        predictionIntervalTicks = config.getInt("performance.prediction.interval-ticks", 20);
+        predictionLookaheadSeconds = config.getDouble("performance.prediction.lookahead-seconds", 10.0);
+        predictionMinSpeed = config.getDouble("performance.prediction.min-speed", 8.0);
+        predictionMaxPlans = config.getInt("performance.prediction.max-plans", 512);
+    }
+
+    /**
+     * Baca signatures.yml dan ganti signature heuristic yang aktif.
+     * Jika file rusak atau kosong, signature bawaan tetap dipakai.
+     */
+    private void loadSignatures() {
+        if (!signaturesFile.exists()) {
+            createDefaultSignatures();
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(signaturesFile);
+        signaturesHash = yaml.saveToString().hashCode();
+        ConfigurationSection section = yaml.getConfigurationSection("signatures");
+        if (section == null) {
+            plugin.getLogger().warning("signatures.yml has no 'signatures' section, using built-in signatures");
+            signatures = DetectionSignature.builtIn();
+            return;
+        }
+
+        List<DetectionSignature> loaded = new ArrayList<>();
+        for (String name : section.getKeys(false)) {
+            DetectionSignature signature = parseSignature(name.toLowerCase(), section.getConfigurationSection(name));
+            if (signature != null) {
+                loaded.add(signature);
+            }
+        }
+
+        signatures = loaded;
+        plugin.getLogger().info("Loaded " + loaded.size() + " detection signatures");
+    }
+
+    private DetectionSignature parseSignature(String name, ConfigurationSection section) {
+        if (section == null) {
+            return null;
+        }
+
+        List<Material> markers = new ArrayList<>();
+        for (String materialName : section.getStringList("markers")) {
+            Material material = Material.matchMaterial(materialName);
+            if (material != null) {
+                markers.add(material);
+            } else {
+                plugin.getLogger().warning("Unknown marker material '" + materialName + "' in signature " + name);
+            }
+        }
+
+        if (markers.isEmpty()) {
+            plugin.getLogger().warning("Signature " + name + " has no valid markers, skipping");
+            return null;
+        }
+
+        int biomeFamilies = 0;
+        for (String familyName : section.getStringList("biomes")) {
+            BiomeFamily family = BiomeFamily.fromName(familyName);
+            if (family != null) {
+                biomeFamilies |= family.mask();
+            } else {
+                plugin.getLogger().warning("Unknown biome family '" + familyName + "' in signature " + name);
+            }
+        }
+
+        DetectionSignature signature = new DetectionSignature(name, section.getInt("min-markers", 1), biomeFamilies,
+                markers.toArray(new Material[0]));
+
+        for (Map<?, ?> entry : section.getMapList("requirements")) {
+            DetectionSignature.RequirementType type = DetectionSignature.RequirementType.fromName(String.valueOf(entry.get("type")));
+            Material material = Material.matchMaterial(String.valueOf(entry.get("material")));
+
+            if (type == null || material == null) {
+                plugin.getLogger().warning("Invalid requirement " + entry + " in signature " + name + ", skipping");
+                continue;
+            }
+
+            int cost = toInt(entry.get("cost"), type.getDefaultCost());
+            if (type == DetectionSignature.RequirementType.AT_LEVEL) {
+                signature.require(type, material, toInt(entry.get("min-y"), 62), toInt(entry.get("max-y"), 65), cost);
+            } else {
+                signature.require(type, material, toInt(entry.get("value"), 1), 0, cost);
+            }
+        }
+
+        if (section.contains("cost")) {
+            signature.withCost(section.getInt("cost"));
+        }
+        return signature;
+    }
+
+    private int toInt(Object value, int defaultValue) {
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    private void createDefaultSignatures() {
+        YamlConfiguration yaml = new YamlConfiguration();
+
+        for (DetectionSignature signature : DetectionSignature.builtIn()) {
+            String path = "signatures." + signature.name;
+
+            List<String> markers = new ArrayList<>();
+            for (Material marker : signature.markers) {
+                markers.add(marker.name());
+            }
+
+            List<String> biomes = new ArrayList<>();
+            for (BiomeFamily family : BiomeFamily.values()) {
+                if ((signature.biomeFamilies & family.mask()) != 0) {
+                    biomes.add(family.name().toLowerCase());
+                }
+            }
+
+            List<Map<String, Object>> requirements = new ArrayList<>();
+            for (DetectionSignature.Requirement requirement : signature.requirements) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("type", requirement.type.name().toLowerCase());
+                entry.put("material", requirement.material.name());
+                if (requirement.type == DetectionSignature.RequirementType.AT_LEVEL) {
+                    entry.put("min-y", requirement.value);
+                    entry.put("max-y", requirement.maxY);
+                } else {
+                    entry.put("value", requirement.value);
+                }
+                requirements.add(entry);
+            }
+
+            yaml.set(path + ".markers", markers);
+            yaml.set(path + ".min-markers", signature.minMarkers);
+            yaml.set(path + ".biomes", biomes);
+            yaml.set(path + ".cost", signature.getCost());
+            if (!requirements.isEmpty()) {
+                yaml.set(path + ".requirements", requirements);
+            }
+        }
+
+        yaml.setComments("signatures", java.util.Arrays.asList(
+                "Heuristic detection signatures, used for worlds without vanilla structure data.",
+                "markers: materials that identify the structure; min-markers of them must be in the chunk",
+                "biomes: biome families where the structure can appear (empty = any biome)",
+                "cost: lower cost signatures are checked first",
+                "requirements: extra checks, cheapest first (optional per-requirement 'cost'):",
+                "- min_count / max_count: material count in the chunk (value)",
+                "- vertical_run: longest vertical run of the material (value)",
+                "- column_footprint: number of columns containing the material (value)",
+                "- at_level: material present between min-y and max-y",
+                "Changes apply on /sr reload."
+        ));
+
+        try {
+            yaml.save(signaturesFile);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not create signatures.yml: " + e.getMessage());
+        }
+    }
+
+    public List<DetectionSignature> getSignatures() {
+        return signatures;
+    }
+
+    /**
+     * Hash isi signatures.yml, supaya ledger chunk ikut invalid saat signature diubah
+     */
+    public int getSignaturesHash() {
+        return signaturesHash;
     }
 
     public void addReplacement(String vanillaStructure, String customStructure) {
@@ -212,12 +587,141 @@ public class ConfigManager {
         return maxConcurrentReplacements;
     }
 
+    public double getTickBudgetMillis() {
+        return tickBudgetMillis;
+    }
+
+    public int getBlocksPerStep() {
+        return blocksPerStep;
+    }
+
+    public boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    public int getBatchRegionSize() {
+        return batchRegionSize;
+    }
+
+    public int getBatchWindowTicks() {
+        return batchWindowTicks;
+    }
+
+    public int getQueueMaxSize() {
+        return queueMaxSize;
+    }
+
+    public boolean isPlayerPriorityEnabled() {
+        return playerPriority;
+    }
+
+    public int getQueueDrainPerTick() {
+        return queueDrainPerTick;
+    }
+
+    public ChunkWorkQueue.OverflowPolicy getQueueOverflowPolicy() {
+        return queueOverflowPolicy;
+    }
+
+    public ReplacementScheduler.InFlightPolicy getInFlightChunkPolicy() {
+        return inFlightChunkPolicy;
+    }
+
+    public String getStructurePackPath() {
+        return structurePackPath;
+    }
+
+    public boolean isPredictionEnabled() {
+        return predictionEnabled;
+    }
+
+    public int getPredictionIntervalTicks() {
+        return predictionIntervalTicks;
+    }
+
+    public double getPredictionLookaheadSeconds() {
+        return predictionLookaheadSeconds;
+    }
+
+    public double getPredictionMinSpeed() {
+        return predictionMinSpeed;
+    }
+
+    public int getPredictionMaxPlans() {
+        return predictionMaxPlans;
+    }
+
     public boolean isAsyncProcessingEnabled() {
-        return config.getBoolean("performance.use-async-processing", true);
+        return asyncProcessing;
+    }
+
+    public int getAsyncDetectionThreads() {
+        return asyncDetectionThreads;
+    }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
     }
 
     public boolean isCacheEnabled() {
-        return config.getBoolean("performance.cache-chunk-analysis", true);
+        return cacheEnabled;
+    }
+
+    public boolean isHeightmapGroundEnabled() {
+        return heightmapGround;
+    }
+
+    public String getDetectionBackend() {
+        return detectionBackend;
+    }
+
+    public int getSurfaceScanDepth() {
+        return surfaceScanDepth;
+    }
+
+    public boolean isPlacementPrefilterEnabled() {
+        return placementPrefilter;
+    }
+
+    public boolean isAdaptiveOrderingEnabled() {
+        return adaptiveOrdering;
+    }
+
+    public int getReorderIntervalSeconds() {
+        return reorderIntervalSeconds;
+    }
+
+    public ColumnSampler.Mode getColumnSamplingMode() {
+        return columnSamplingMode;
+    }
+
+    public int getColumnSampleSize() {
+        return columnSampleSize;
+    }
+
+    public int getColumnSampleBand() {
+        return columnSampleBand;
+    }
+
+    // Biome classification
+    public Map<String, List<String>> getBiomeKeywords() {
+        return getStringListSection("biomes.keywords");
+    }
+
+    public Map<String, List<String>> getBiomeOverrides() {
+        return getStringListSection("biomes.overrides");
+    }
+
+    private Map<String, List<String>> getStringListSection(String path) {
+        Map<String, List<String>> result = new HashMap<>();
+        if (config == null || !config.isConfigurationSection(path)) {
+            return result;
+        }
+
+        for (String key : config.getConfigurationSection(path).getKeys(false)) {
+            result.put(key.toLowerCase(), config.getStringList(path + "." + key));
+        }
+        return result;
     }
 
     // Terrain blending settings
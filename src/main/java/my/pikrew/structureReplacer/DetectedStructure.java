@@ -0,0 +1,19 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+
+/**
+ * Hasil deteksi yang sudah dikonfirmasi dan siap di-replace di main thread
+ */
+public class DetectedStructure {
+
+    public final String vanillaStructure;
+    public final String customStructure;
+    public final Location location;
+
+    public DetectedStructure(String vanillaStructure, String customStructure, Location location) {
+        this.vanillaStructure = vanillaStructure;
+        this.customStructure = customStructure;
+        this.location = location;
+    }
+}
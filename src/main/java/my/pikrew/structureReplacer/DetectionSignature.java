@@ -0,0 +1,181 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Signature block untuk satu jenis vanilla structure: material penanda, berapa
+ * yang harus ada, family biome yang diizinkan, dan syarat tambahan.
+ */
+public class DetectionSignature {
+
+    public enum RequirementType {
+        // Jumlah material minimal value
+        MIN_COUNT(1),
+        // Material ada, tapi tidak lebih dari value (structure kecil)
+        MAX_COUNT(1),
+        // Material ada di antara Y value dan maxY
+        AT_LEVEL(2),
+        // Run vertikal material minimal value block
+        VERTICAL_RUN(5),
+        // Material ada di minimal value kolom
+        COLUMN_FOOTPRINT(5);
+
+        // Perkiraan biaya relatif; run/footprint butuh ColumnRunIndex
+        private final int defaultCost;
+
+        RequirementType(int defaultCost) {
+            this.defaultCost = defaultCost;
+        }
+
+        public int getDefaultCost() {
+            return defaultCost;
+        }
+
+        public static RequirementType fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    public static class Requirement {
+        public final RequirementType type;
+        public final Material material;
+        public final int value;
+        public final int maxY;
+        public final int cost;
+
+        public Requirement(RequirementType type, Material material, int value, int maxY, int cost) {
+            this.type = type;
+            this.material = material;
+            this.value = value;
+            this.maxY = maxY;
+            this.cost = cost;
+        }
+
+        @Override
+        public String toString() {
+            String range = type == RequirementType.AT_LEVEL ? value + ".." + maxY : String.valueOf(value);
+            return type.name().toLowerCase() + " " + material.name().toLowerCase() + " " + range;
+        }
+    }
+
+    public final String name;
+    public final Material[] markers;
+    public final int minMarkers;
+    // Bitmask BiomeFamily; 0 berarti semua biome
+    public final int biomeFamilies;
+    public final List<Requirement> requirements = new ArrayList<>();
+    // Hint biaya; signature murah dan selektif dicek lebih dulu. -1 berarti dihitung dari requirement
+    private int cost = -1;
+
+    public DetectionSignature(String name, int minMarkers, int biomeFamilies, Material... markers) {
+        this.name = name;
+        this.minMarkers = minMarkers;
+        this.biomeFamilies = biomeFamilies;
+        this.markers = markers;
+    }
+
+    public DetectionSignature require(RequirementType type, Material material, int value) {
+        return require(type, material, value, 0);
+    }
+
+    public DetectionSignature require(RequirementType type, Material material, int value, int maxY) {
+        return require(type, material, value, maxY, type.getDefaultCost());
+    }
+
+    public DetectionSignature require(RequirementType type, Material material, int value, int maxY, int cost) {
+        requirements.add(new Requirement(type, material, value, maxY, cost));
+        // Requirement murah dievaluasi lebih dulu supaya yang mahal sering tidak perlu dijalankan
+        requirements.sort((a, b) -> Integer.compare(a.cost, b.cost));
+        return this;
+    }
+
+    public DetectionSignature withCost(int cost) {
+        this.cost = cost;
+        return this;
+    }
+
+    public int getCost() {
+        if (cost >= 0) {
+            return cost;
+        }
+
+        int total = 1;
+        for (Requirement requirement : requirements) {
+            total += requirement.cost;
+        }
+        return total;
+    }
+
+    public boolean hasExplicitCost() {
+        return cost >= 0;
+    }
+
+    public static int families(BiomeFamily... families) {
+        int mask = 0;
+        for (BiomeFamily family : families) {
+            mask |= family.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Signature bawaan, sama dengan aturan heuristic sebelumnya.
+     * Dipakai untuk membuat signatures.yml default dan sebagai fallback.
+     */
+    public static List<DetectionSignature> builtIn() {
+        Material[] villageMarkers = {
+                Material.COBBLESTONE, Material.OAK_PLANKS, Material.OAK_LOG, Material.DIRT_PATH,
+                Material.HAY_BLOCK, Material.BELL, Material.COMPOSTER
+        };
+        int snowy = families(BiomeFamily.SNOWY, BiomeFamily.FROZEN, BiomeFamily.ICE);
+
+        return Arrays.asList(
+                new DetectionSignature("village_plains", 3, families(BiomeFamily.PLAINS, BiomeFamily.MEADOW), villageMarkers),
+                new DetectionSignature("village_desert", 3, families(BiomeFamily.DESERT),
+                        Material.SANDSTONE, Material.SMOOTH_SANDSTONE, Material.SANDSTONE_STAIRS, Material.DIRT_PATH,
+                        Material.HAY_BLOCK, Material.BELL, Material.DEAD_BUSH),
+                new DetectionSignature("village_savanna", 3, families(BiomeFamily.SAVANNA), villageMarkers),
+                new DetectionSignature("village_snowy", 3, snowy,
+                        Material.SPRUCE_PLANKS, Material.SPRUCE_LOG, Material.COBBLESTONE, Material.SNOW_BLOCK,
+                        Material.DIRT_PATH, Material.BELL, Material.CAMPFIRE),
+                new DetectionSignature("village_taiga", 3, families(BiomeFamily.TAIGA),
+                        Material.SPRUCE_PLANKS, Material.SPRUCE_LOG, Material.COBBLESTONE, Material.DIRT_PATH,
+                        Material.BELL, Material.CAMPFIRE, Material.SWEET_BERRY_BUSH),
+                new DetectionSignature("pillager_outpost", 2,
+                        families(BiomeFamily.PLAINS, BiomeFamily.DESERT, BiomeFamily.SAVANNA, BiomeFamily.TAIGA),
+                        Material.DARK_OAK_PLANKS, Material.DARK_OAK_LOG, Material.COBBLESTONE, Material.DARK_OAK_FENCE,
+                        Material.WHITE_BANNER, Material.IRON_BARS)
+                        .require(RequirementType.VERTICAL_RUN, Material.DARK_OAK_LOG, 10),
+                new DetectionSignature("desert_pyramid", 2, families(BiomeFamily.DESERT),
+                        Material.SANDSTONE, Material.CHISELED_SANDSTONE, Material.SANDSTONE_STAIRS, Material.SANDSTONE_SLAB,
+                        Material.TNT, Material.STONE_PRESSURE_PLATE)
+                        .require(RequirementType.MIN_COUNT, Material.SANDSTONE, 15),
+                new DetectionSignature("jungle_pyramid", 2, families(BiomeFamily.JUNGLE),
+                        Material.COBBLESTONE, Material.MOSSY_COBBLESTONE, Material.JUNGLE_LOG, Material.JUNGLE_LEAVES,
+                        Material.REDSTONE_WIRE, Material.STICKY_PISTON, Material.TRIPWIRE_HOOK),
+                new DetectionSignature("igloo", 2, snowy,
+                        Material.SNOW_BLOCK, Material.ICE, Material.RED_CARPET, Material.FURNACE, Material.RED_BED)
+                        .require(RequirementType.MAX_COUNT, Material.SNOW_BLOCK, 8 * 8),
+                new DetectionSignature("witch_hut", 2, families(BiomeFamily.SWAMP),
+                        Material.SPRUCE_PLANKS, Material.SPRUCE_LOG, Material.MUSHROOM_STEM, Material.CAULDRON,
+                        Material.CRAFTING_TABLE, Material.FLOWER_POT)
+                        .require(RequirementType.AT_LEVEL, Material.WATER, 62, 65),
+                new DetectionSignature("ocean_monument", 2, families(BiomeFamily.OCEAN),
+                        Material.PRISMARINE, Material.PRISMARINE_BRICKS, Material.DARK_PRISMARINE, Material.SEA_LANTERN,
+                        Material.SPONGE, Material.WET_SPONGE)
+                        .require(RequirementType.MIN_COUNT, Material.PRISMARINE, 30),
+                new DetectionSignature("woodland_mansion", 3, families(BiomeFamily.DARK_FOREST),
+                        Material.DARK_OAK_PLANKS, Material.DARK_OAK_LOG, Material.COBBLESTONE, Material.WHITE_WOOL,
+                        Material.BLUE_WOOL, Material.BOOKSHELF, Material.REDSTONE_TORCH)
+                        .require(RequirementType.MIN_COUNT, Material.DARK_OAK_PLANKS, 50)
+        );
+    }
+}
@@ -0,0 +1,110 @@
+package my.pikrew.structureReplacer;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Counter runtime untuk setiap detector dan predicate: berapa kali dievaluasi,
+ * berapa kali menolak chunk, dan total waktunya. Dari sini urutan evaluasi
+ * dihitung ulang supaya yang murah dan paling sering menolak jalan lebih dulu.
+ *
+ * Dipakai bersama oleh thread deteksi, jadi semua counter memakai LongAdder.
+ */
+public class DetectorStats {
+
+    // Di bawah jumlah sampel ini statistik belum dipercaya
+    public static final int MIN_SAMPLES = 64;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public void record(String key, long nanos, boolean rejected) {
+        Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+        counter.evaluations.increment();
+        counter.nanos.add(nanos);
+        if (rejected) {
+            counter.rejections.increment();
+        }
+    }
+
+    /**
+     * Perkiraan biaya per penolakan (ns); makin kecil makin layak dicek lebih dulu.
+     * Predicate yang belum cukup sampel mendapat 0 supaya cepat terukur.
+     */
+    public double score(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            return 0;
+        }
+
+        long evaluations = counter.evaluations.sum();
+        if (evaluations < MIN_SAMPLES) {
+            return 0;
+        }
+
+        double averageNanos = (double) counter.nanos.sum() / evaluations;
+        double rejectionRate = (double) counter.rejections.sum() / evaluations;
+        // Predicate yang hampir tidak pernah menolak tetap di belakang, tapi urut menurut biaya
+        return averageNanos / Math.max(rejectionRate, 0.001);
+    }
+
+    /**
+     * Urutkan key menurut score. Sort stabil, jadi urutan awal dipakai sebagai tie-breaker.
+     */
+    public <T> void sort(List<T> items, Function<T, String> keyOf) {
+        // Score diambil sekali; counter bisa berubah selama sort berjalan
+        Map<T, Double> scores = new IdentityHashMap<>();
+        for (T item : items) {
+            scores.put(item, score(keyOf.apply(item)));
+        }
+        items.sort(Comparator.comparingDouble(scores::get));
+    }
+
+    public Entry get(String key) {
+        Counter counter = counters.get(key);
+        return counter == null ? new Entry(key, 0, 0, 0) : counter.toEntry(key);
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    private static class Counter {
+        final LongAdder evaluations = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Entry toEntry(String key) {
+            return new Entry(key, evaluations.sum(), rejections.sum(), nanos.sum());
+        }
+    }
+
+    /**
+     * Salinan counter untuk ditampilkan
+     */
+    public static class Entry {
+        public final String key;
+        public final long evaluations;
+        public final long rejections;
+        public final long nanos;
+
+        Entry(String key, long evaluations, long rejections, long nanos) {
+            this.key = key;
+            this.evaluations = evaluations;
+            this.rejections = rejections;
+            this.nanos = nanos;
+        }
+
+        public double getAverageMicros() {
+            return evaluations == 0 ? 0 : nanos / 1000.0 / evaluations;
+        }
+
+        public double getRejectionRate() {
+            return evaluations == 0 ? 0 : (double) rejections / evaluations;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+import org.bukkit.util.BoundingBox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deteksi eksak memakai data structure start yang disimpan server
+ * (Chunk.getStructures()). Chunk tanpa structure hanya butuh satu lookup
+ * metadata, tanpa membaca block sama sekali.
+ */
+public class GeneratedStructureDetector implements StructureDetector {
+
+    // Nama replacement -> key structure vanilla di registry
+    private static final Map<String, Set<String>> STRUCTURE_KEYS = new HashMap<>();
+
+    static {
+        STRUCTURE_KEYS.put("village_plains", Set.of("minecraft:village_plains"));
+        STRUCTURE_KEYS.put("village_desert", Set.of("minecraft:village_desert"));
+        STRUCTURE_KEYS.put("village_savanna", Set.of("minecraft:village_savanna"));
+        STRUCTURE_KEYS.put("village_snowy", Set.of("minecraft:village_snowy"));
+        STRUCTURE_KEYS.put("village_taiga", Set.of("minecraft:village_taiga"));
+        STRUCTURE_KEYS.put("pillager_outpost", Set.of("minecraft:pillager_outpost"));
+        STRUCTURE_KEYS.put("desert_pyramid", Set.of("minecraft:desert_pyramid"));
+        STRUCTURE_KEYS.put("jungle_pyramid", Set.of("minecraft:jungle_pyramid"));
+        STRUCTURE_KEYS.put("igloo", Set.of("minecraft:igloo"));
+        STRUCTURE_KEYS.put("witch_hut", Set.of("minecraft:swamp_hut"));
+        STRUCTURE_KEYS.put("ocean_monument", Set.of("minecraft:monument"));
+        STRUCTURE_KEYS.put("woodland_mansion", Set.of("minecraft:mansion"));
+        STRUCTURE_KEYS.put("shipwreck", Set.of("minecraft:shipwreck", "minecraft:shipwreck_beached"));
+        STRUCTURE_KEYS.put("buried_treasure", Set.of("minecraft:buried_treasure"));
+        STRUCTURE_KEYS.put("ruined_portal", Set.of(
+                "minecraft:ruined_portal", "minecraft:ruined_portal_desert", "minecraft:ruined_portal_jungle",
+                "minecraft:ruined_portal_swamp", "minecraft:ruined_portal_mountain", "minecraft:ruined_portal_ocean"
+        ));
+    }
+
+    @Override
+    public boolean supports(ChunkScan scan) {
+        return scan.hasStructureData();
+    }
+
+    @Override
+    public Location findStructure(ChunkScan scan, String vanillaStructure) {
+        Set<String> keys = STRUCTURE_KEYS.get(vanillaStructure.toLowerCase());
+        if (keys == null) {
+            return null;
+        }
+
+        for (ChunkScan.StructureReference structure : scan.getStructures()) {
+            if (!keys.contains(structure.key)) {
+                continue;
+            }
+
+            // Structure besar direferensikan oleh banyak chunk; hanya chunk tempat
+            // start piece berada yang melaporkannya supaya tiap structure terhitung sekali
+            BoundingBox start = structure.startPiece != null ? structure.startPiece : structure.boundingBox;
+            int x = (int) Math.floor(start.getCenterX());
+            int z = (int) Math.floor(start.getCenterZ());
+
+            if ((x >> 4) != scan.getChunkX() || (z >> 4) != scan.getChunkZ()) {
+                continue;
+            }
+
+            return new Location(scan.getWorld(), x, (int) start.getMinY(), z);
+        }
+
+        return null;
+    }
+
+    public static boolean isKnownStructure(String vanillaStructure) {
+        return STRUCTURE_KEYS.containsKey(vanillaStructure.toLowerCase());
+    }
+}
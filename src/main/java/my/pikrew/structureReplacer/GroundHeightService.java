@@ -0,0 +1,94 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.World;
+
+/**
+ * Satu-satunya tempat untuk query level tanah. Heightmap server dipakai sebagai
+ * titik awal sehingga tiap query biasanya cukup membaca satu atau dua block,
+ * bukan berjalan dari puncak world.
+ *
+ * Versi world dan versi snapshot memakai semantik MOTION_BLOCKING_NO_LEAVES yang
+ * sama, supaya analisis batch dan analisis langsung dari world sepakat.
+ */
+public class GroundHeightService {
+
+    private static final int DEFAULT_GROUND_LEVEL = 64; // Default sea level
+
+    private final ConfigManager configManager;
+
+    public GroundHeightService(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    public int getGroundLevel(Location location) {
+        return getGroundLevel(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+
+    public int getGroundLevel(World world, int x, int z) {
+        if (!configManager.isHeightmapGroundEnabled()) {
+            int startY = world.getMaxHeight() - 1;
+            Material above = startY + 1 < world.getMaxHeight() ? world.getBlockAt(x, startY + 1, z).getType() : Material.AIR;
+            return findGroundBelow(world, x, startY, z, above);
+        }
+
+        // Heightmap sudah melewati udara, tanaman dan daun. Block di atasnya dianggap
+        // non-solid (di bawah pohon itu daun), jadi walk hanya untuk air/lava di atas dasar
+        int top = world.getHighestBlockYAt(x, z, HeightMap.MOTION_BLOCKING_NO_LEAVES);
+        return findGroundBelow(world, x, Math.min(top, world.getMaxHeight() - 1), z, Material.AIR);
+    }
+
+    /**
+     * Versi snapshot untuk thread deteksi. Koordinat x/z relatif terhadap chunk (0-15).
+     */
+    public int getGroundLevel(ChunkSnapshot snapshot, int x, int z, int minHeight, int maxHeight) {
+        int startY = maxHeight - 1;
+        Material above = Material.AIR;
+
+        if (configManager.isHeightmapGroundEnabled()) {
+            // Heightmap snapshot adalah MOTION_BLOCKING (termasuk daun); turun melewati daun dan
+            // block yang tidak menghalangi gerak supaya sama dengan MOTION_BLOCKING_NO_LEAVES
+            startY = Math.min(snapshot.getHighestBlockYAt(x, z), maxHeight - 1);
+            while (startY >= minHeight && !isMotionBlockingNoLeaves(snapshot.getBlockType(x, startY, z))) {
+                startY--;
+            }
+        }
+
+        for (int y = startY; y >= minHeight; y--) {
+            Material blockType = snapshot.getBlockType(x, y, z);
+            if (isGround(blockType, above)) {
+                return y;
+            }
+            above = blockType;
+        }
+        return DEFAULT_GROUND_LEVEL;
+    }
+
+    /**
+     * Rule ground asli: block solid dengan block non-solid di atasnya.
+     * Block di atas dibawa dari iterasi sebelumnya supaya tiap Y hanya dibaca sekali.
+     */
+    private int findGroundBelow(World world, int x, int startY, int z, Material above) {
+        for (int y = startY; y >= world.getMinHeight(); y--) {
+            Material blockType = world.getBlockAt(x, y, z).getType();
+            if (isGround(blockType, above)) {
+                return y;
+            }
+            above = blockType;
+        }
+        return DEFAULT_GROUND_LEVEL;
+    }
+
+    private static boolean isMotionBlockingNoLeaves(Material blockType) {
+        return (blockType.isSolid() || blockType == Material.WATER || blockType == Material.LAVA)
+                && !Tag.LEAVES.isTagged(blockType);
+    }
+
+    private boolean isGround(Material blockType, Material blockAbove) {
+        return blockType.isSolid() && (blockAbove == Material.AIR || !blockAbove.isSolid());
+    }
+}
@@ -0,0 +1,173 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deteksi berbasis signature block. Dipakai sebagai fallback untuk world
+ * dengan custom generator yang tidak menyimpan data structure vanilla.
+ */
+public class HeuristicStructureDetector implements StructureDetector {
+
+    private final JavaPlugin plugin;
+    private final ConfigManager configManager;
+    private final BiomeClassifier biomeClassifier;
+    private final DetectorStats stats;
+    private volatile SignatureMatcher matcher;
+
+    public HeuristicStructureDetector(JavaPlugin plugin, ConfigManager configManager, BiomeClassifier biomeClassifier,
+                                      DetectorStats stats) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.biomeClassifier = biomeClassifier;
+        this.stats = stats;
+        this.matcher = SignatureMatcher.compile(Collections.emptyList(), Collections.emptySet(), stats);
+    }
+
+    @Override
+    public boolean supports(ChunkScan scan) {
+        return true;
+    }
+
+    @Override
+    public Location findStructure(ChunkScan scan, String vanillaStructure) {
+        if (!mightContainStructure(scan, vanillaStructure)) {
+            return null;
+        }
+
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info("Potential " + vanillaStructure + " detected in chunk [" + scan.getChunkX() + "," + scan.getChunkZ() + "]");
+        }
+
+        return findStructureInChunk(scan, vanillaStructure);
+    }
+
+    /**
+     * Kompilasi ulang signature untuk replacement yang aktif
+     */
+    public void reload(Collection<String> activeStructures) {
+        this.matcher = SignatureMatcher.compile(configManager.getSignatures(), activeStructures, stats);
+    }
+
+    /**
+     * Urutkan ulang requirement signature dari statistik yang terkumpul
+     */
+    public void reorderPredicates() {
+        matcher.reorder();
+    }
+
+    public int getBiomeFamilies(String structureName) {
+        return matcher.getBiomeFamilies(structureName.toLowerCase());
+    }
+
+    public boolean isMarker(Material material) {
+        return matcher.isMarker(material);
+    }
+
+    public List<DetectionSignature.Requirement> getPredicateOrder(String structureName) {
+        return matcher.getRequirementOrder(structureName.toLowerCase());
+    }
+
+    private boolean mightContainStructure(ChunkScan scan, String structureName) {
+        return matcher.matches(scan, structureName.toLowerCase(), biomeClassifier);
+    }
+
+    /**
+     * Hint biaya signature untuk mengurutkan replacement, termurah lebih dulu
+     */
+    public int getSignatureCost(String structureName) {
+        return matcher.getCost(structureName.toLowerCase());
+    }
+
+    private Location findStructureInChunk(ChunkScan scan, String structureName) {
+        int chunkX = scan.getBlockX();
+        int chunkZ = scan.getBlockZ();
+
+        // Section di bawah batas scan tidak pernah masuk histogram, origin juga tidak dicari di sana
+        int fromY = scan.getMaterialIndex().getScanFloorY();
+
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = fromY; y < scan.getMaxHeight(); y++) {
+                    if (isStructureOrigin(scan, chunkX + x, y, chunkZ + z, structureName)) {
+                        return new Location(scan.getWorld(), chunkX + x, y, chunkZ + z);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isStructureOrigin(ChunkScan scan, int x, int y, int z, String structureName) {
+        switch (structureName.toLowerCase()) {
+            case "village_plains":
+            case "village_desert":
+            case "village_savanna":
+            case "village_snowy":
+            case "village_taiga":
+                return isVillageCenter(scan, x, y, z);
+            case "pillager_outpost":
+                return isPillagerOutpostBase(scan, x, y, z);
+            case "desert_pyramid":
+                return isDesertPyramidBase(scan, x, y, z);
+            case "jungle_pyramid":
+                return isJunglePyramidBase(scan, x, y, z);
+            case "igloo":
+                return isIglooBase(scan, x, y, z);
+            case "witch_hut":
+                return isWitchHutBase(scan, x, y, z);
+            case "ocean_monument":
+                return isOceanMonumentBase(scan, x, y, z);
+            case "woodland_mansion":
+                return isWoodlandMansionBase(scan, x, y, z);
+            default:
+                return false;
+        }
+    }
+
+    private boolean isVillageCenter(ChunkScan scan, int x, int y, int z) {
+        Material blockType = scan.getType(x, y, z);
+        return blockType == Material.BELL ||
+                blockType == Material.COBBLESTONE ||
+                hasNearbyBlocks(scan, x, y, z, 5, Material.BELL, Material.COBBLESTONE_WALL);
+    }
+
+    private boolean isPillagerOutpostBase(ChunkScan scan, int x, int y, int z) {
+        return hasNearbyBlocks(scan, x, y, z, 3, Material.DARK_OAK_LOG, Material.COBBLESTONE);
+    }
+
+    private boolean isDesertPyramidBase(ChunkScan scan, int x, int y, int z) {
+        return scan.getType(x, y, z) == Material.SANDSTONE &&
+                hasNearbyBlocks(scan, x, y, z, 5, Material.SANDSTONE);
+    }
+
+    private boolean isJunglePyramidBase(ChunkScan scan, int x, int y, int z) {
+        return hasNearbyBlocks(scan, x, y, z, 3, Material.COBBLESTONE, Material.MOSSY_COBBLESTONE);
+    }
+
+    private boolean isIglooBase(ChunkScan scan, int x, int y, int z) {
+        return scan.getType(x, y, z) == Material.SNOW_BLOCK &&
+                hasNearbyBlocks(scan, x, y, z, 3, Material.SNOW_BLOCK);
+    }
+
+    private boolean isWitchHutBase(ChunkScan scan, int x, int y, int z) {
+        return hasNearbyBlocks(scan, x, y, z, 3, Material.SPRUCE_PLANKS, Material.CAULDRON);
+    }
+
+    private boolean isOceanMonumentBase(ChunkScan scan, int x, int y, int z) {
+        return hasNearbyBlocks(scan, x, y, z, 5, Material.PRISMARINE, Material.SEA_LANTERN);
+    }
+
+    private boolean isWoodlandMansionBase(ChunkScan scan, int x, int y, int z) {
+        return hasNearbyBlocks(scan, x, y, z, 5, Material.DARK_OAK_PLANKS, Material.COBBLESTONE);
+    }
+
+    private boolean hasNearbyBlocks(ChunkScan scan, int centerX, int centerY, int centerZ, int radius, Material... materials) {
+        return scan.getPrefixSum(radius, materials).containsWithin(centerX, centerY, centerZ, radius);
+    }
+}
@@ -0,0 +1,110 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Material;
+
+/**
+ * Tabel prefix-sum 3D (summed-area table) untuk sekumpulan material di sekitar
+ * satu chunk. Setelah dibangun, jumlah block target di dalam kotak manapun
+ * dijawab dengan 8 lookup, jadi "ada material dalam radius r" menjadi O(1).
+ */
+public class MaterialPrefixSum {
+
+    // Koordinat world dari sel pertama tabel
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    // Dimensi +1 di setiap sumbu, baris/kolom 0 selalu nol
+    private final int[] sums;
+    private final int strideX;
+    private final int strideY;
+
+    private MaterialPrefixSum(int originX, int originY, int originZ, int sizeX, int sizeY, int sizeZ) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.strideY = sizeZ + 1;
+        this.strideX = (sizeY + 1) * strideY;
+        this.sums = new int[(sizeX + 1) * strideX];
+    }
+
+    /**
+     * Bangun tabel untuk chunk tengah scan plus margin block di setiap sisi,
+     * dari fromY sampai toY (eksklusif). Block di luar area snapshot dihitung kosong.
+     */
+    public static MaterialPrefixSum build(ChunkScan scan, int margin, int fromY, int toY, Material... materials) {
+        boolean[] targets = new boolean[Material.values().length];
+        for (Material material : materials) {
+            targets[material.ordinal()] = true;
+        }
+
+        int size = 16 + margin * 2;
+        MaterialPrefixSum table = new MaterialPrefixSum(scan.getBlockX() - margin, fromY, scan.getBlockZ() - margin,
+                size, Math.max(0, toY - fromY), size);
+        int[] s = table.sums;
+        int sx = table.strideX;
+        int sy = table.strideY;
+
+        for (int i = 1; i <= table.sizeX; i++) {
+            int worldX = table.originX + i - 1;
+            for (int j = 1; j <= table.sizeY; j++) {
+                int worldY = table.originY + j - 1;
+                for (int k = 1; k <= table.sizeZ; k++) {
+                    Material type = scan.getType(worldX, worldY, table.originZ + k - 1);
+                    int value = type != null && targets[type.ordinal()] ? 1 : 0;
+
+                    int cell = i * sx + j * sy + k;
+                    s[cell] = value
+                            + s[cell - sx] + s[cell - sy] + s[cell - 1]
+                            - s[cell - sx - sy] - s[cell - sx - 1] - s[cell - sy - 1]
+                            + s[cell - sx - sy - 1];
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Jumlah block target di dalam kotak (inklusif, koordinat world).
+     * Bagian kotak di luar tabel diabaikan.
+     */
+    public int count(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int x0 = Math.max(minX - originX, 0);
+        int y0 = Math.max(minY - originY, 0);
+        int z0 = Math.max(minZ - originZ, 0);
+        int x1 = Math.min(maxX - originX + 1, sizeX);
+        int y1 = Math.min(maxY - originY + 1, sizeY);
+        int z1 = Math.min(maxZ - originZ + 1, sizeZ);
+
+        if (x0 >= x1 || y0 >= y1 || z0 >= z1) {
+            return 0;
+        }
+
+        return at(x1, y1, z1)
+                - at(x0, y1, z1) - at(x1, y0, z1) - at(x1, y1, z0)
+                + at(x0, y0, z1) + at(x0, y1, z0) + at(x1, y0, z0)
+                - at(x0, y0, z0);
+    }
+
+    /**
+     * Apakah ada block target dalam kubus (2r+1)^3 di sekitar titik
+     */
+    public boolean containsWithin(int x, int y, int z, int radius) {
+        return count(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius) > 0;
+    }
+
+    public boolean isEmpty() {
+        return at(sizeX, sizeY, sizeZ) == 0;
+    }
+
+    private int at(int i, int j, int k) {
+        return sums[i * strideX + j * strideY + k];
+    }
+}
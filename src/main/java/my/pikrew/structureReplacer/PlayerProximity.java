@@ -0,0 +1,93 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prioritas pekerjaan berdasarkan jarak ke player online terdekat dan arah
+ * pandangnya. Posisi player diambil sekali per siklus scheduling, sehingga
+ * menghitung prioritas untuk banyak job hanya berupa aritmetika sederhana.
+ * Hanya dipakai dari main thread.
+ */
+public class PlayerProximity {
+
+    // Job di luar jangkauan pandang semua player selalu di belakang job yang terlihat
+    public static final double NOT_VISIBLE = 1_000_000.0;
+
+    // Per world: x, z, arah pandang x, arah pandang z, jarak pandang (block) per player
+    private final Map<World, List<double[]>> viewers = new HashMap<>();
+    private int refreshedTick = -1;
+
+    /**
+     * Ambil ulang posisi dan arah pandang semua player online, maksimal sekali per tick
+     * walaupun dipanggil oleh beberapa scheduler
+     */
+    public void refresh() {
+        int tick = Bukkit.getCurrentTick();
+        if (tick == refreshedTick) {
+            return;
+        }
+        refreshedTick = tick;
+        viewers.clear();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location location = player.getLocation();
+            Vector direction = location.getDirection();
+
+            // Arah horizontal saja; player yang melihat lurus ke atas/bawah dianggap tanpa arah
+            double length = Math.sqrt(direction.getX() * direction.getX() + direction.getZ() * direction.getZ());
+            double dirX = length > 1.0E-3 ? direction.getX() / length : 0;
+            double dirZ = length > 1.0E-3 ? direction.getZ() / length : 0;
+
+            viewers.computeIfAbsent(player.getWorld(), world -> new ArrayList<>())
+                    .add(new double[]{location.getX(), location.getZ(), dirX, dirZ, player.getViewDistance() * 16.0});
+        }
+    }
+
+    /**
+     * Prioritas untuk titik di world; makin kecil makin cepat dikerjakan. Jarak ke player
+     * dikalikan 1 (tepat di depan) sampai 2 (tepat di belakang). Titik yang di luar jarak
+     * pandang semua player mendapat NOT_VISIBLE plus jarak, supaya tetap urut dekat-jauh.
+     */
+    public double getPriority(World world, double x, double z) {
+        List<double[]> worldViewers = viewers.get(world);
+        if (worldViewers == null) {
+            return NOT_VISIBLE * 2;
+        }
+
+        double best = Double.MAX_VALUE;
+        double nearest = Double.MAX_VALUE;
+
+        for (double[] viewer : worldViewers) {
+            double dx = x - viewer[0];
+            double dz = z - viewer[1];
+            double distance = Math.sqrt(dx * dx + dz * dz);
+            nearest = Math.min(nearest, distance);
+
+            if (distance > viewer[4]) {
+                continue;
+            }
+
+            double facing = distance > 1.0E-3 ? (dx * viewer[2] + dz * viewer[3]) / distance : 1.0;
+            best = Math.min(best, distance * (1.5 - 0.5 * facing));
+        }
+
+        return best != Double.MAX_VALUE ? best : NOT_VISIBLE + nearest;
+    }
+
+    public double getPriority(Location location) {
+        return getPriority(location.getWorld(), location.getX(), location.getZ());
+    }
+
+    public static boolean isVisible(double priority) {
+        return priority < NOT_VISIBLE;
+    }
+}
@@ -0,0 +1,64 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+
+/**
+ * Pekerjaan replacement yang dipecah menjadi langkah kecil. Scheduler memanggil
+ * step berulang kali di beberapa tick sampai job selesai.
+ */
+public interface ReplacementJob {
+
+    /**
+     * Jalankan satu langkah kecil. Mengembalikan true jika job sudah selesai.
+     */
+    boolean step();
+
+    /**
+     * Job boleh menunda langkah berikutnya sampai tick tertentu (misalnya menunggu
+     * block selesai ditempatkan). Scheduler melewati job sampai tick ini.
+     */
+    default long getResumeTick() {
+        return 0L;
+    }
+
+    /**
+     * Job yang belum siap (misalnya template masih dibaca async) tetap di antrian
+     * dan tidak dipromosikan. Footprint baru diminta setelah job siap.
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Chunk yang akan dibaca atau diubah job ini, atau null jika tidak diketahui.
+     * Scheduler hanya menjalankan langkah jika semua chunk footprint sudah loaded.
+     */
+    default ChunkFootprint getFootprint() {
+        return null;
+    }
+
+    /**
+     * Titik utama pekerjaan ini untuk prioritas berdasarkan jarak player, atau null
+     */
+    default Location getLocation() {
+        return null;
+    }
+
+    /**
+     * Dipanggil sekali saat job keluar dari scheduler: completed true jika step selesai
+     * normal, false jika job melempar exception, dibatalkan, atau dibuang saat shutdown.
+     */
+    default void onFinished(boolean completed) {
+    }
+
+    /**
+     * Dipanggil jika chunk footprint ter-unload saat job aktif. Mengembalikan true jika
+     * job bisa dibatalkan dengan bersih (scheduler lalu memanggil onFinished(false));
+     * false jika job harus diselesaikan (misalnya paste sudah dimulai) setelah chunk-nya loaded lagi.
+     */
+    default boolean cancel() {
+        return true;
+    }
+
+    String describe();
+}
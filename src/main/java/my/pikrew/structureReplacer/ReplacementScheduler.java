@@ -0,0 +1,487 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Scheduler pusat untuk semua replacement. Job dijalankan bergiliran di main thread
+ * dengan batas waktu per tick, dan jumlah job yang aktif bersamaan dibatasi oleh
+ * performance.max-concurrent-replacements.
+ *
+ * Job dengan footprint hanya dijalankan jika semua chunk footprint sudah loaded;
+ * chunk yang belum loaded diminta async dan job menunggu, jadi job tidak pernah
+ * memicu load chunk sync di main thread.
+ *
+ * Dengan performance.player-priority, job yang paling dekat dan terlihat player
+ * dikerjakan lebih dulu, dan job yang tidak terlihat siapa pun mengalah ke job yang terlihat.
+ *
+ * performance.in-flight-chunks menentukan nasib job aktif saat chunk-nya ter-unload:
+ * ticket menahan footprint dengan plugin chunk ticket sejak job diaktifkan, cancel
+ * membatalkan job yang belum mengubah block dan membiarkan job lain menunggu chunk-nya.
+ */
+public class ReplacementScheduler {
+
+    public enum InFlightPolicy {
+        TICKET,
+        CANCEL;
+
+        public static InFlightPolicy fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return TICKET;
+            }
+        }
+    }
+
+    // Batas menunggu footprint lengkap untuk job antri, sekitar lima menit
+    private static final long MAX_CHUNK_WAIT_TICKS = 6000L;
+
+    private final JavaPlugin plugin;
+    private final ConfigManager configManager;
+    private final PlayerProximity proximity;
+
+    private final Deque<QueuedJob> pending = new ArrayDeque<>();
+    private final List<ReplacementJob> active = new ArrayList<>();
+    // Job aktif yang footprint-nya belum lengkap di tick ini
+    private final Set<ReplacementJob> waitingForChunks = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Job aktif yang footprint-nya sedang ditahan dengan chunk ticket
+    private final Set<ReplacementJob> ticketed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private BukkitTask task;
+    private long currentTick;
+
+    // Statistik untuk /sr status
+    private long lastTickNanos;
+    private double averageTickNanos;
+    private int lastTickSteps;
+    private long completedJobs;
+    private long failedJobs;
+    private long cancelledJobs;
+    private long abandonedJobs;
+
+    public ReplacementScheduler(JavaPlugin plugin, ConfigManager configManager, PlayerProximity proximity) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.proximity = proximity;
+    }
+
+    public void start() {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        // Job yang belum selesai tidak dihitung selesai; chunk-nya dicoba lagi setelah restart
+        for (QueuedJob queued : pending) {
+            releaseTickets(queued.job);
+            queued.job.onFinished(false);
+        }
+        for (ReplacementJob job : active) {
+            releaseTickets(job);
+            job.onFinished(false);
+        }
+        pending.clear();
+        active.clear();
+        waitingForChunks.clear();
+    }
+
+    /**
+     * Masukkan job ke antrian. Job baru mulai setelah chunk-processing-delay-ticks.
+     * Harus dipanggil dari main thread.
+     */
+    public void submit(ReplacementJob job) {
+        pending.addLast(new QueuedJob(job, currentTick + Math.max(0, configManager.getChunkProcessingDelay())));
+    }
+
+    private void tick() {
+        currentTick++;
+        if (configManager.isPlayerPriorityEnabled()) {
+            proximity.refresh();
+            promoteByPriority();
+            // Job yang terlihat player mendapat budget lebih dulu
+            active.sort(Comparator.comparingDouble(this::priorityOf));
+        } else {
+            promotePending();
+        }
+        checkFootprints();
+
+        if (active.isEmpty()) {
+            lastTickNanos = 0L;
+            lastTickSteps = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (configManager.getTickBudgetMillis() * 1_000_000L);
+        int steps = 0;
+        boolean progressed = true;
+
+        // Round-robin: setiap job aktif dapat satu langkah per putaran sampai budget habis
+        while (progressed && !active.isEmpty()) {
+            progressed = false;
+            Iterator<ReplacementJob> iterator = active.iterator();
+
+            while (iterator.hasNext()) {
+                // Minimal satu langkah per tick supaya job tetap maju walau budget sangat kecil
+                if (steps > 0 && System.nanoTime() >= deadline) {
+                    break;
+                }
+
+                ReplacementJob job = iterator.next();
+                if (job.getResumeTick() > currentTick || waitingForChunks.contains(job)) {
+                    continue;
+                }
+
+                steps++;
+                progressed = true;
+                if (runStep(job)) {
+                    iterator.remove();
+                    releaseTickets(job);
+                }
+            }
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        lastTickNanos = System.nanoTime() - start;
+        lastTickSteps = steps;
+        averageTickNanos = averageTickNanos * 0.95 + lastTickNanos * 0.05;
+    }
+
+    private boolean runStep(ReplacementJob job) {
+        try {
+            if (job.step()) {
+                completedJobs++;
+                job.onFinished(true);
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            failedJobs++;
+            plugin.getLogger().log(Level.SEVERE, "Replacement job failed: " + job.describe(), e);
+            job.onFinished(false);
+            return true;
+        }
+    }
+
+    /**
+     * Job yang siap dan footprint-nya sudah loaded dipromosikan urut antrian. Job yang
+     * masih menunggu chunk tetap di antrian supaya tidak memakai slot aktif.
+     */
+    private void promotePending() {
+        int maxActive = Math.max(1, configManager.getMaxConcurrentReplacements());
+        Iterator<QueuedJob> iterator = pending.iterator();
+
+        while (active.size() < maxActive && iterator.hasNext()) {
+            QueuedJob queued = iterator.next();
+            if (queued.readyTick > currentTick) {
+                // Antrian urut menurut readyTick
+                break;
+            }
+
+            if (!queued.job.isReady()) {
+                continue;
+            }
+            if (!awaitFootprint(queued)) {
+                if (queued.abandoned) {
+                    iterator.remove();
+                }
+                continue;
+            }
+
+            iterator.remove();
+            activate(queued.job);
+        }
+    }
+
+    /**
+     * Promosikan job siap dengan prioritas terbaik (paling dekat dan terlihat player).
+     * Jika slot penuh, job aktif yang tidak terlihat siapa pun mengalah ke job yang terlihat.
+     */
+    private void promoteByPriority() {
+        int maxActive = Math.max(1, configManager.getMaxConcurrentReplacements());
+        List<QueuedJob> ready = new ArrayList<>();
+        Map<ReplacementJob, Double> priorities = new IdentityHashMap<>();
+
+        Iterator<QueuedJob> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            QueuedJob queued = iterator.next();
+            if (queued.readyTick > currentTick) {
+                break;
+            }
+
+            if (!queued.job.isReady()) {
+                continue;
+            }
+            if (!awaitFootprint(queued)) {
+                if (queued.abandoned) {
+                    iterator.remove();
+                }
+                continue;
+            }
+
+            ready.add(queued);
+            priorities.put(queued.job, priorityOf(queued.job));
+        }
+
+        if (ready.isEmpty()) {
+            return;
+        }
+        ready.sort(Comparator.comparingDouble(queued -> priorities.get(queued.job)));
+
+        for (QueuedJob queued : ready) {
+            double priority = priorities.get(queued.job);
+
+            if (active.size() >= maxActive) {
+                if (!PlayerProximity.isVisible(priority) || !yieldInvisibleJob()) {
+                    break;
+                }
+            }
+
+            pending.remove(queued);
+            activate(queued.job);
+        }
+    }
+
+    /**
+     * Kembalikan satu job aktif yang tidak terlihat player ke depan antrian
+     */
+    private boolean yieldInvisibleJob() {
+        ReplacementJob worst = null;
+        double worstPriority = 0;
+
+        for (ReplacementJob job : active) {
+            double priority = priorityOf(job);
+            if (!PlayerProximity.isVisible(priority) && (worst == null || priority > worstPriority)) {
+                worst = job;
+                worstPriority = priority;
+            }
+        }
+
+        if (worst == null) {
+            return false;
+        }
+
+        // Progres job tetap tersimpan, job lanjut saat dipromosikan lagi
+        active.remove(worst);
+        releaseTickets(worst);
+        pending.addFirst(new QueuedJob(worst, currentTick));
+        return true;
+    }
+
+    /**
+     * True jika footprint job antri sudah loaded. Jika belum, chunk-nya diminta async;
+     * job yang menunggu terlalu lama atau footprint-nya tidak bisa lengkap diakhiri
+     * dengan onFinished(false) dan ditandai abandoned supaya dikeluarkan dari antrian.
+     */
+    private boolean awaitFootprint(QueuedJob queued) {
+        ChunkFootprint footprint = queued.job.getFootprint();
+        if (footprint == null || footprint.isLoaded()) {
+            queued.waitingSince = -1L;
+            return true;
+        }
+
+        if (queued.waitingSince < 0) {
+            queued.waitingSince = currentTick;
+        }
+        if (footprint.isAbandoned() || currentTick - queued.waitingSince > MAX_CHUNK_WAIT_TICKS) {
+            queued.abandoned = true;
+            releaseTickets(queued.job);
+            queued.job.onFinished(false);
+            abandonedJobs++;
+            if (configManager.isDebugEnabled()) {
+                plugin.getLogger().info("Gave up waiting for chunks of replacement: " + queued.job.describe());
+            }
+            return false;
+        }
+
+        footprint.requestLoad();
+        return false;
+    }
+
+    private void activate(ReplacementJob job) {
+        active.add(job);
+        // Satu-satunya tempat ticket dipasang; dengan cancel, chunk-nya boleh ter-unload
+        if (configManager.getInFlightChunkPolicy() == InFlightPolicy.TICKET) {
+            holdTickets(job);
+        }
+    }
+
+    private void holdTickets(ReplacementJob job) {
+        ChunkFootprint footprint = job.getFootprint();
+        if (footprint != null && ticketed.add(job)) {
+            footprint.addTickets(plugin);
+        }
+    }
+
+    /**
+     * Lepas semua ticket footprint job
+     */
+    private void releaseTickets(ReplacementJob job) {
+        ticketed.remove(job);
+        ChunkFootprint footprint = job.isReady() ? job.getFootprint() : null;
+        if (footprint != null) {
+            footprint.removeTickets(plugin);
+        }
+    }
+
+    /**
+     * Dipanggil saat chunk ter-unload. Dengan policy cancel, job aktif yang memakai chunk
+     * ini dibatalkan dan dibereskan lewat onFinished(false) (claim dilepas, chunk tetap
+     * PENDING). Job yang sudah mulai paste menunggu sampai chunk-nya di-load lagi oleh
+     * player; ticket tidak dipasang dari event unload.
+     */
+    public void onChunkUnload(World world, int chunkX, int chunkZ) {
+        if (configManager.getInFlightChunkPolicy() != InFlightPolicy.CANCEL) {
+            return;
+        }
+
+        Iterator<ReplacementJob> iterator = active.iterator();
+        while (iterator.hasNext()) {
+            ReplacementJob job = iterator.next();
+            ChunkFootprint footprint = job.getFootprint();
+            if (footprint == null || ticketed.contains(job) || !footprint.contains(world, chunkX, chunkZ)) {
+                continue;
+            }
+
+            if (job.cancel()) {
+                iterator.remove();
+                waitingForChunks.remove(job);
+                releaseTickets(job);
+                job.onFinished(false);
+                cancelledJobs++;
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Cancelled replacement after chunk " + chunkX + ", " + chunkZ +
+                            " unloaded: " + job.describe());
+                }
+            }
+        }
+    }
+
+    private double priorityOf(ReplacementJob job) {
+        Location location = job.getLocation();
+        return location == null ? PlayerProximity.NOT_VISIBLE * 2 : proximity.getPriority(location);
+    }
+
+    /**
+     * Tandai job aktif yang chunk footprint-nya ter-unload sejak tick sebelumnya. Dengan
+     * policy cancel chunk-nya tidak di-load ulang; job menunggu sampai player me-load-nya.
+     */
+    private void checkFootprints() {
+        waitingForChunks.clear();
+        boolean reload = configManager.getInFlightChunkPolicy() != InFlightPolicy.CANCEL;
+        for (ReplacementJob job : active) {
+            ChunkFootprint footprint = job.getFootprint();
+            if (footprint != null && !footprint.isLoaded()) {
+                if (reload) {
+                    footprint.requestLoad();
+                }
+                waitingForChunks.add(job);
+            }
+        }
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * Jumlah job (antri atau aktif) yang sedang menunggu chunk footprint di-load
+     */
+    public int getWaitingForChunksCount() {
+        int waiting = waitingForChunks.size();
+        for (QueuedJob queued : pending) {
+            if (queued.readyTick > currentTick || !queued.job.isReady()) {
+                continue;
+            }
+            ChunkFootprint footprint = queued.job.getFootprint();
+            if (footprint != null && !footprint.isLoaded()) {
+                waiting++;
+            }
+        }
+        return waiting;
+    }
+
+    public List<String> describeActive() {
+        List<String> descriptions = new ArrayList<>();
+        for (ReplacementJob job : active) {
+            descriptions.add(job.describe());
+        }
+        return descriptions;
+    }
+
+    public double getLastTickMillis() {
+        return lastTickNanos / 1_000_000.0;
+    }
+
+    public double getAverageTickMillis() {
+        return averageTickNanos / 1_000_000.0;
+    }
+
+    public int getLastTickSteps() {
+        return lastTickSteps;
+    }
+
+    public long getCompletedJobs() {
+        return completedJobs;
+    }
+
+    public long getFailedJobs() {
+        return failedJobs;
+    }
+
+    public long getCancelledJobs() {
+        return cancelledJobs;
+    }
+
+    public long getAbandonedJobs() {
+        return abandonedJobs;
+    }
+
+    public int getTicketedJobCount() {
+        return ticketed.size();
+    }
+
+    private static class QueuedJob {
+        final ReplacementJob job;
+        final long readyTick;
+        // Tick saat job mulai menunggu footprint, -1 jika tidak sedang menunggu
+        long waitingSince = -1L;
+        boolean abandoned;
+
+        QueuedJob(ReplacementJob job, long readyTick) {
+            this.job = job;
+            this.readyTick = readyTick;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Semua signature aktif dikompilasi menjadi satu tabel Material.ordinal() ke
+ * bitmask signature. Satu pass atas material penanda chunk menghitung hit untuk
+ * semua structure sekaligus, jadi biaya deteksi hampir tidak bertambah seiring
+ * jumlah replacement. Requirement per signature awalnya dijalankan urut dari yang
+ * termurah, lalu diurutkan ulang dari biaya dan tingkat penolakan yang terukur.
+ */
+public class SignatureMatcher {
+
+    // Satu bit per signature di long
+    public static final int MAX_SIGNATURES = 64;
+
+    private final DetectionSignature[] signatures;
+    // Material.ordinal() -> bitmask signature yang memakai material itu sebagai penanda
+    private final long[] candidates;
+    // Material penanda unik, urutan pass
+    private final Material[] markerPalette;
+    private final Map<String, Integer> bits = new HashMap<>();
+    private final DetectorStats stats;
+    // Urutan evaluasi requirement per signature, diganti utuh oleh reorder()
+    private volatile DetectionSignature.Requirement[][] requirementOrder;
+
+    private SignatureMatcher(DetectionSignature[] signatures, long[] candidates, Material[] markerPalette, DetectorStats stats) {
+        this.signatures = signatures;
+        this.candidates = candidates;
+        this.markerPalette = markerPalette;
+        this.stats = stats;
+        this.requirementOrder = new DetectionSignature.Requirement[signatures.length][];
+
+        for (int bit = 0; bit < signatures.length; bit++) {
+            bits.put(signatures[bit].name, bit);
+            requirementOrder[bit] = signatures[bit].requirements.toArray(new DetectionSignature.Requirement[0]);
+        }
+    }
+
+    /**
+     * Kompilasi signature untuk structure yang aktif saja
+     */
+    public static SignatureMatcher compile(Collection<DetectionSignature> available, Collection<String> activeStructures,
+                                           DetectorStats stats) {
+        List<DetectionSignature> selected = new ArrayList<>();
+        for (DetectionSignature signature : available) {
+            if (activeStructures.contains(signature.name) && selected.size() < MAX_SIGNATURES) {
+                selected.add(signature);
+            }
+        }
+
+        long[] candidates = new long[Material.values().length];
+        List<Material> palette = new ArrayList<>();
+
+        for (int bit = 0; bit < selected.size(); bit++) {
+            for (Material marker : selected.get(bit).markers) {
+                int id = marker.ordinal();
+                if (candidates[id] == 0) {
+                    palette.add(marker);
+                }
+                candidates[id] |= 1L << bit;
+            }
+        }
+
+        return new SignatureMatcher(selected.toArray(new DetectionSignature[0]), candidates,
+                palette.toArray(new Material[0]), stats);
+    }
+
+    /**
+     * Apakah chunk cocok dengan signature structure. Fase murah (hit penanda dan biome)
+     * dihitung sekali untuk semua signature; requirement yang lebih mahal baru dievaluasi
+     * saat structure itu ditanyakan, dan hasilnya disimpan di scan.
+     */
+    public boolean matches(ChunkScan scan, String structureName, BiomeClassifier biomeClassifier) {
+        int bit = bitOf(structureName);
+        if (bit < 0) {
+            return false;
+        }
+
+        long flag = 1L << bit;
+        ScanState state = scan.getSignatureState(this);
+        if (!state.prepared) {
+            state.candidates = findCandidates(scan, biomeClassifier);
+            state.prepared = true;
+        }
+
+        if ((state.candidates & flag) == 0) {
+            return false;
+        }
+
+        if ((state.checked & flag) == 0) {
+            state.checked |= flag;
+            if (meetsRequirements(scan, bit)) {
+                state.met |= flag;
+            }
+        }
+        return (state.met & flag) != 0;
+    }
+
+    /**
+     * Bitmask signature yang lolos ambang penanda dan filter biome
+     */
+    private long findCandidates(ChunkScan scan, BiomeClassifier biomeClassifier) {
+        if (signatures.length == 0) {
+            return 0L;
+        }
+
+        ChunkMaterialIndex index = scan.getMaterialIndex();
+        int[] hits = new int[signatures.length];
+
+        // Satu pass atas palette penanda, setiap material menambah hit ke semua signature sekaligus
+        for (Material marker : markerPalette) {
+            if (!index.contains(marker)) {
+                continue;
+            }
+
+            long mask = candidates[marker.ordinal()];
+            while (mask != 0) {
+                hits[Long.numberOfTrailingZeros(mask)]++;
+                mask &= mask - 1;
+            }
+        }
+
+        int biomeFamilies = biomeClassifier.getFamilies(scan.getCenterBiome());
+        long result = 0L;
+
+        for (int bit = 0; bit < signatures.length; bit++) {
+            DetectionSignature signature = signatures[bit];
+            if (hits[bit] < signature.minMarkers) {
+                continue;
+            }
+            if (signature.biomeFamilies != 0 && (signature.biomeFamilies & biomeFamilies) == 0) {
+                continue;
+            }
+            result |= 1L << bit;
+        }
+
+        return result;
+    }
+
+    private boolean meetsRequirements(ChunkScan scan, int bit) {
+        ChunkMaterialIndex index = scan.getMaterialIndex();
+        String name = signatures[bit].name;
+
+        for (DetectionSignature.Requirement requirement : requirementOrder[bit]) {
+            long started = System.nanoTime();
+            boolean met;
+            switch (requirement.type) {
+                case MIN_COUNT:
+                    met = index.count(requirement.material) >= requirement.value;
+                    break;
+                case MAX_COUNT:
+                    int count = index.count(requirement.material);
+                    met = count > 0 && count <= requirement.value;
+                    break;
+                case VERTICAL_RUN:
+                    met = scan.getColumnRunIndex().longestRun(requirement.material) >= requirement.value;
+                    break;
+                case COLUMN_FOOTPRINT:
+                    met = scan.getColumnRunIndex().columnCount(requirement.material) >= requirement.value;
+                    break;
+                case AT_LEVEL:
+                    met = index.containsAtLevel(requirement.material, requirement.value, requirement.maxY);
+                    break;
+                default:
+                    met = false;
+                    break;
+            }
+
+            stats.record(predicateKey(name, requirement), System.nanoTime() - started, !met);
+            if (!met) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hitung ulang urutan requirement dari statistik. Scan yang sedang berjalan
+     * tetap memakai array lama sampai selesai.
+     */
+    public void reorder() {
+        DetectionSignature.Requirement[][] reordered = new DetectionSignature.Requirement[signatures.length][];
+        for (int bit = 0; bit < signatures.length; bit++) {
+            String name = signatures[bit].name;
+            List<DetectionSignature.Requirement> ordered = new ArrayList<>(Arrays.asList(requirementOrder[bit]));
+            stats.sort(ordered, requirement -> predicateKey(name, requirement));
+            reordered[bit] = ordered.toArray(new DetectionSignature.Requirement[0]);
+        }
+        this.requirementOrder = reordered;
+    }
+
+    /**
+     * Urutan requirement yang sedang dipakai untuk structure
+     */
+    public List<DetectionSignature.Requirement> getRequirementOrder(String structureName) {
+        int bit = bitOf(structureName);
+        return bit < 0 ? Collections.emptyList() : Arrays.asList(requirementOrder[bit]);
+    }
+
+    public static String predicateKey(String structureName, DetectionSignature.Requirement requirement) {
+        return "predicate:" + structureName + ":" + requirement;
+    }
+
+    /**
+     * Bit signature untuk structure, atau -1 jika structure tidak dikompilasi
+     */
+    public int bitOf(String structureName) {
+        return bits.getOrDefault(structureName, -1);
+    }
+
+    /**
+     * Hint biaya signature, Integer.MAX_VALUE untuk structure tanpa signature
+     */
+    public int getCost(String structureName) {
+        int bit = bitOf(structureName);
+        return bit < 0 ? Integer.MAX_VALUE : signatures[bit].getCost();
+    }
+
+    public List<String> getStructureNames() {
+        List<String> names = new ArrayList<>();
+        for (DetectionSignature signature : signatures) {
+            names.add(signature.name);
+        }
+        return names;
+    }
+
+    /**
+     * Bitmask BiomeFamily tempat structure bisa muncul; 0 berarti semua biome
+     */
+    public int getBiomeFamilies(String structureName) {
+        int bit = bitOf(structureName);
+        return bit < 0 ? 0 : signatures[bit].biomeFamilies;
+    }
+
+    /**
+     * Apakah material dipakai sebagai penanda oleh salah satu signature aktif
+     */
+    public boolean isMarker(Material material) {
+        return candidates[material.ordinal()] != 0;
+    }
+
+    public int getMarkerCount() {
+        return markerPalette.length;
+    }
+
+    /**
+     * Hasil matcher untuk satu ChunkScan
+     */
+    public static class ScanState {
+        final SignatureMatcher owner;
+        boolean prepared;
+        long candidates;
+        long checked;
+        long met;
+
+        ScanState(SignatureMatcher owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+
+/**
+ * Backend deteksi structure vanilla. Implementasi hanya boleh membaca dari
+ * ChunkScan karena bisa dipanggil dari thread deteksi async.
+ */
+public interface StructureDetector {
+
+    /**
+     * Apakah backend ini bisa menjawab untuk scan tersebut
+     */
+    boolean supports(ChunkScan scan);
+
+    /**
+     * Lokasi origin structure di dalam chunk, atau null jika tidak ada
+     */
+    Location findStructure(ChunkScan scan, String vanillaStructure);
+}
@@ -0,0 +1,235 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Material;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format biner .srs untuk structure: header, palette berisi kombinasi unik
+ * material/BlockData/kategori/role, lalu satu varint per posisi di bounding box
+ * (0 = kosong, selain itu indeks palette + 1), urut x, y, z seperti saat disimpan.
+ * Jauh lebih kecil dan lebih cepat dibaca daripada YAML per block.
+ */
+public final class StructureFile {
+
+    public static final String EXTENSION = ".srs";
+
+    private static final int MAGIC = 0x53525331; // "SRS1"
+    private static final int VERSION = 1;
+
+    private StructureFile() {
+    }
+
+    public static StructureTemplate read(String name, File file) throws IOException {
+        return read(name, ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * Baca template dari buffer, mulai dari posisi buffer saat ini
+     */
+    public static StructureTemplate read(String name, ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a structure file: " + name);
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported structure file version " + version + ": " + name);
+            }
+
+            readString(buffer); // Nama saat disimpan; nama file yang dipakai
+            int width = readVarInt(buffer);
+            int height = readVarInt(buffer);
+            int length = readVarInt(buffer);
+            long created = buffer.getLong();
+            int blockCount = readVarInt(buffer);
+            int paletteSize = readVarInt(buffer);
+
+            // Ukuran dari file tidak dipercaya sebelum array dialokasikan: setiap cell minimal
+            // satu byte, setiap entry palette minimal empat byte (empat string kosong)
+            if (width < 0 || height < 0 || length < 0 || blockCount < 0 || paletteSize < 0
+                    || (long) width * height * length > buffer.remaining()
+                    || blockCount > (long) width * height * length
+                    || (long) paletteSize * 4 > buffer.remaining()) {
+                throw new IOException("Corrupt structure file: " + name);
+            }
+
+            Material[] paletteMaterials = new Material[paletteSize];
+            String[] paletteNames = new String[paletteSize];
+            String[] paletteData = new String[paletteSize];
+            String[] paletteCategories = new String[paletteSize];
+            String[] paletteRoles = new String[paletteSize];
+            for (int i = 0; i < paletteSize; i++) {
+                paletteNames[i] = readString(buffer);
+                paletteMaterials[i] = Material.matchMaterial(paletteNames[i]);
+                paletteData[i] = emptyToNull(readString(buffer));
+                paletteCategories[i] = emptyToNull(readString(buffer));
+                paletteRoles[i] = emptyToNull(readString(buffer));
+            }
+
+            StructureTemplate template = new StructureTemplate(name, width, height, length, created, blockCount);
+            int index = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    for (int z = 0; z < length; z++) {
+                        int entry = readVarInt(buffer);
+                        if (entry == 0) {
+                            continue;
+                        }
+                        if (entry < 0 || entry > paletteSize || index >= blockCount) {
+                            throw new IOException("Corrupt structure file: " + name);
+                        }
+
+                        int palette = entry - 1;
+                        template.x[index] = x;
+                        template.y[index] = y;
+                        template.z[index] = z;
+                        template.materials[index] = paletteMaterials[palette];
+                        template.materialNames[index] = paletteNames[palette];
+                        template.blockData[index] = paletteData[palette];
+                        template.categories[index] = paletteCategories[palette];
+                        template.roles[index] = paletteRoles[palette];
+                        index++;
+                    }
+                }
+            }
+
+            if (index != blockCount) {
+                throw new IOException("Corrupt structure file: " + name);
+            }
+            return template;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated structure file: " + name, e);
+        }
+    }
+
+    /**
+     * Tulis template ke file lewat file sementara, supaya file lama tidak rusak jika gagal
+     */
+    public static void write(File file, StructureTemplate template) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), encode(template));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static byte[] encode(StructureTemplate template) throws IOException {
+        // Bounding box ikut diperbesar jika ada block di luar ukuran yang tercatat (YAML lama)
+        int width = template.width;
+        int height = template.height;
+        int length = template.length;
+        for (int i = 0; i < template.getBlockCount(); i++) {
+            if (template.x[i] < 0 || template.y[i] < 0 || template.z[i] < 0) {
+                throw new IOException("Negative block position in structure " + template.name);
+            }
+            width = Math.max(width, template.x[i] + 1);
+            height = Math.max(height, template.y[i] + 1);
+            length = Math.max(length, template.z[i] + 1);
+        }
+
+        Map<String, Integer> paletteIndex = new HashMap<>();
+        List<String[]> palette = new ArrayList<>();
+        int[] cells = new int[Math.multiplyExact(Math.multiplyExact(width, height), length)];
+
+        for (int i = 0; i < template.getBlockCount(); i++) {
+            String[] entry = {
+                    nullToEmpty(template.materialNames[i]), nullToEmpty(template.blockData[i]),
+                    nullToEmpty(template.categories[i]), nullToEmpty(template.roles[i])
+            };
+            Integer index = paletteIndex.get(String.join("\0", entry));
+            if (index == null) {
+                index = palette.size();
+                paletteIndex.put(String.join("\0", entry), index);
+                palette.add(entry);
+            }
+            cells[(template.x[i] * height + template.y[i]) * length + template.z[i]] = index + 1;
+        }
+
+        int blockCount = 0;
+        for (int cell : cells) {
+            if (cell != 0) {
+                blockCount++;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeString(out, template.name);
+        writeVarInt(out, width);
+        writeVarInt(out, height);
+        writeVarInt(out, length);
+        out.writeLong(template.created);
+        writeVarInt(out, blockCount);
+
+        writeVarInt(out, palette.size());
+        for (String[] entry : palette) {
+            for (String value : entry) {
+                writeString(out, value);
+            }
+        }
+
+        for (int cell : cells) {
+            writeVarInt(out, cell);
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static int readVarInt(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static String readString(ByteBuffer buffer) throws IOException {
+        int size = readVarInt(buffer);
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IOException("Invalid string length " + size);
+        }
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
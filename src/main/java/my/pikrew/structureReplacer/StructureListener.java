@@ -13,8 +13,17 @@ import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 public class StructureListener implements Listener {
@@ -23,273 +32,238 @@ public class StructureListener implements Listener {
     private StructureManager structureManager;
     private ConfigManager configManager;
     private TerrainAdapter terrainAdapter;
-    private Map<String, String> replacements;
-
-    public StructureListener(JavaPlugin plugin, StructureManager structureManager, ConfigManager configManager) {
+    private GroundHeightService groundHeights;
+    private BiomeClassifier biomeClassifier;
+    private final ChunkLedger ledger;
+    private final StructureRegistry structureRegistry = new StructureRegistry();
+    private final ReplacementScheduler replacementScheduler;
+    private final StructurePlacementGrid placementGrid;
+    private final ChunkWorkQueue chunkQueue;
+    private final StructurePredictor predictor;
+    // Diurutkan dari signature termurah, lalu dari biaya dan tingkat penolakan yang terukur
+    private volatile List<Map.Entry<String, String>> replacements;
+    // Replacement per kombinasi family biome, dibuat ulang setiap kali urutan berubah
+    private volatile Map<Integer, List<Map.Entry<String, String>>> biomeDispatch = new ConcurrentHashMap<>();
+    private final DetectorStats detectorStats = new DetectorStats();
+    private final ColumnSampler columnSampler = new ColumnSampler();
+    private final ThreadPoolExecutor detectionExecutor;
+    private final StructureDetector generatedStructureDetector;
+    private final HeuristicStructureDetector heuristicDetector;
+
+    public StructureListener(JavaPlugin plugin, StructureManager structureManager, ConfigManager configManager,
+                             BiomeClassifier biomeClassifier) {
         this.plugin = plugin;
         this.structureManager = structureManager;
         this.configManager = configManager;
-        this.terrainAdapter = new TerrainAdapter(plugin, configManager);
+        this.groundHeights = new GroundHeightService(configManager);
+        this.biomeClassifier = biomeClassifier;
+        this.terrainAdapter = new TerrainAdapter(plugin, configManager, groundHeights, biomeClassifier);
+        this.ledger = new ChunkLedger(plugin);
 
         // Set terrain adapter ke structure manager
         structureManager.setTerrainAdapter(terrainAdapter);
         structureManager.setConfigManager(configManager);
+        structureManager.setBiomeClassifier(biomeClassifier);
+
+        this.detectionExecutor = createDetectionExecutor();
+        this.generatedStructureDetector = new GeneratedStructureDetector();
+        this.heuristicDetector = new HeuristicStructureDetector(plugin, configManager, biomeClassifier, detectorStats);
+        PlayerProximity proximity = new PlayerProximity();
+        this.replacementScheduler = new ReplacementScheduler(plugin, configManager, proximity);
+        this.placementGrid = new StructurePlacementGrid(configManager);
+        replacementScheduler.start();
+        this.chunkQueue = new ChunkWorkQueue(plugin, configManager, ledger, proximity, this::checkAndReplaceBatch);
+        chunkQueue.start();
 
         reloadReplacements();
+
+        this.predictor = new StructurePredictor(plugin, configManager, placementGrid, biomeClassifier, structureManager,
+                this::getReplacementOrder, heuristicDetector::getBiomeFamilies);
+        predictor.start();
+
+        long reorderTicks = Math.max(1, configManager.getReorderIntervalSeconds()) * 20L;
+        Bukkit.getScheduler().runTaskTimer(plugin, this::reorderDetectors, reorderTicks, reorderTicks);
     }
 
     public void reloadReplacements() {
-        this.replacements = configManager.getReplacements();
-    }
+        Map<String, String> configured = configManager.getReplacements();
+        heuristicDetector.reload(configured.keySet());
+        ledger.updateConfigHash(configured, configManager.getDetectionBackend() + "|" + configManager.getSignaturesHash() +
+                "|" + describeSampling());
 
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onStructureGrow(StructureGrowEvent event) {
-        if (!configManager.isEnabled()) {
-            return;
-        }
+        List<Map.Entry<String, String>> ordered = new ArrayList<>(configured.entrySet());
+        ordered.sort(java.util.Comparator.comparingInt(entry -> heuristicDetector.getSignatureCost(entry.getKey())));
+        setReplacements(ordered);
 
-        if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("Structure grow detected at " + event.getLocation());
-        }
+        // Statistik tetap disimpan antar reload, langsung pakai urutan yang sudah dipelajari
+        reorderDetectors();
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
-    public void onChunkPopulate(org.bukkit.event.world.ChunkPopulateEvent event) {
-        if (!configManager.isEnabled()) {
+    /**
+     * Urutkan ulang detector dan predicate signature dari statistik runtime:
+     * yang murah dan paling sering menolak chunk jalan lebih dulu.
+     */
+    public void reorderDetectors() {
+        if (!configManager.isAdaptiveOrderingEnabled()) {
             return;
         }
 
-        // Delay untuk memastikan chunk sudah fully populated
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            checkAndReplaceStructures(event.getChunk());
-        }, 5L); // Increased delay untuk stability
-    }
-
-    @EventHandler(priority = EventPriority.MONITOR)
-    public void onChunkLoad(org.bukkit.event.world.ChunkLoadEvent event) {
-        if (!configManager.isEnabled()) {
-            return;
-        }
+        heuristicDetector.reorderPredicates();
 
-        if (event.isNewChunk()) {
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                checkAndReplaceStructures(event.getChunk());
-            }, 8L); // Longer delay for new chunks
-        }
+        List<Map.Entry<String, String>> ordered = new ArrayList<>(replacements);
+        detectorStats.sort(ordered, entry -> detectorKey(entry.getKey()));
+        setReplacements(ordered);
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
-    public void onWorldInit(org.bukkit.event.world.WorldInitEvent event) {
-        if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("World " + event.getWorld().getName() + " initialized. Structure replacement active.");
-        }
+    private void setReplacements(List<Map.Entry<String, String>> ordered) {
+        this.replacements = ordered;
+        this.biomeDispatch = new ConcurrentHashMap<>();
     }
 
-    private boolean hasVerticalStructure(org.bukkit.Chunk chunk, Material material, int minHeight) {
+    /**
+     * Replacement yang bisa muncul di biome chunk ini, dari satu sample biome.
+     * Backend structure start tidak dibatasi biome karena start-nya sudah pasti.
+     */
+    private List<Map.Entry<String, String>> selectByBiome(org.bukkit.Chunk chunk) {
+        List<Map.Entry<String, String>> all = replacements;
         World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
-
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                int consecutiveHeight = 0;
-                for (int y = world.getMinHeight(); y < world.getMaxHeight(); y++) {
-                    if (world.getBlockAt(chunkX + x, y, chunkZ + z).getType() == material) {
-                        consecutiveHeight++;
-                        if (consecutiveHeight >= minHeight) {
-                            return true;
-                        }
-                    } else {
-                        consecutiveHeight = 0;
-                    }
+        if (useGeneratedStructures(world)) {
+            return all;
+        }
+
+        // Titik sample sama dengan ChunkScan.getCenterBiome()
+        Biome biome = world.getBiome((chunk.getX() << 4) + 8, 64, (chunk.getZ() << 4) + 8);
+        int families = biomeClassifier.getFamilies(biome);
+
+        return biomeDispatch.computeIfAbsent(families, mask -> {
+            List<Map.Entry<String, String>> selected = new ArrayList<>();
+            for (Map.Entry<String, String> replacement : all) {
+                int allowed = heuristicDetector.getBiomeFamilies(replacement.getKey());
+                if (allowed == 0 || (allowed & mask) != 0) {
+                    selected.add(replacement);
                 }
             }
-        }
-        return false;
+            return selected;
+        });
     }
 
-    private boolean hasLargeStructureFootprint(org.bukkit.Chunk chunk, Material material, int minBlocks) {
-        return countMaterialInChunk(chunk, material) >= minBlocks;
+    public static String detectorKey(String vanillaStructure) {
+        return "detector:" + vanillaStructure;
     }
 
-    private boolean hasSmallStructureFootprint(org.bukkit.Chunk chunk, Material material, int maxSize) {
-        int count = countMaterialInChunk(chunk, material);
-        return count > 0 && count <= maxSize * maxSize;
+    /**
+     * Hanya mode enforce yang mengubah hasil deteksi, jadi hanya itu yang masuk hash ledger
+     */
+    private String describeSampling() {
+        if (configManager.getColumnSamplingMode() != ColumnSampler.Mode.ENFORCE) {
+            return "full";
+        }
+        return "sample:" + configManager.getColumnSampleSize() + ":" + configManager.getColumnSampleBand();
     }
 
-    private boolean hasMassiveStructure(org.bukkit.Chunk chunk, Material material, int minBlocks) {
-        return countMaterialInChunk(chunk, material) >= minBlocks;
+    public ColumnSampler getColumnSampler() {
+        return columnSampler;
     }
 
-    private boolean isOverWater(org.bukkit.Chunk chunk) {
-        return hasBlockTypeInChunkAtLevel(chunk, Material.WATER, 62, 65);
+    public DetectorStats getDetectorStats() {
+        return detectorStats;
     }
 
-    private int countMaterialInChunk(org.bukkit.Chunk chunk, Material material) {
-        World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
-        int count = 0;
-
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                for (int y = world.getMinHeight(); y < world.getMaxHeight(); y++) {
-                    if (world.getBlockAt(chunkX + x, y, chunkZ + z).getType() == material) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
+    /**
+     * Urutan replacement yang sedang dipakai saat deteksi
+     */
+    public List<Map.Entry<String, String>> getReplacementOrder() {
+        return replacements;
     }
 
-    private boolean hasBlockTypeInChunkAtLevel(org.bukkit.Chunk chunk, Material material, int minY, int maxY) {
-        World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
-
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                for (int y = minY; y <= maxY; y++) {
-                    if (world.getBlockAt(chunkX + x, y, chunkZ + z).getType() == material) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    public HeuristicStructureDetector getHeuristicDetector() {
+        return heuristicDetector;
     }
 
-    private boolean hasBlockTypeInChunk(org.bukkit.Chunk chunk, Material material) {
-        World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
-
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                for (int y = world.getMinHeight(); y < world.getMaxHeight(); y++) {
-                    if (world.getBlockAt(chunkX + x, y, chunkZ + z).getType() == material) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
+    /**
+     * Pool terbatas untuk deteksi di luar main thread. Antrian dibatasi supaya
+     * pregen yang cepat tidak menumpuk snapshot tanpa batas di memory.
+     */
+    private ThreadPoolExecutor createDetectionExecutor() {
+        int threads = Math.max(1, configManager.getAsyncDetectionThreads());
+        AtomicInteger threadId = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "StructureReplacer-Detection-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
 
-    private Location findStructureInChunk(org.bukkit.Chunk chunk, String structureName) {
-        World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
-
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                for (int y = world.getMinHeight(); y < world.getMaxHeight(); y++) {
-                    Location loc = new Location(world, chunkX + x, y, chunkZ + z);
-                    if (isStructureOrigin(loc, structureName)) {
-                        return loc;
-                    }
-                }
-            }
-        }
-        return null;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, configManager.getAsyncQueueSize())), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    private boolean isStructureOrigin(Location location, String structureName) {
-        switch (structureName.toLowerCase()) {
-            case "village_plains":
-            case "village_desert":
-            case "village_savanna":
-            case "village_snowy":
-            case "village_taiga":
-                return isVillageCenter(location);
-            case "pillager_outpost":
-                return isPillagerOutpostBase(location);
-            case "desert_pyramid":
-                return isDesertPyramidBase(location);
-            case "jungle_pyramid":
-                return isJunglePyramidBase(location);
-            case "igloo":
-                return isIglooBase(location);
-            case "witch_hut":
-                return isWitchHutBase(location);
-            case "ocean_monument":
-                return isOceanMonumentBase(location);
-            case "woodland_mansion":
-                return isWoodlandMansionBase(location);
-            default:
-                return false;
-        }
+    public void shutdown() {
+        detectionExecutor.shutdownNow();
+        chunkQueue.stop();
+        predictor.stop();
+        replacementScheduler.stop();
     }
 
-    private boolean isVillageCenter(Location location) {
-        Material blockType = location.getBlock().getType();
-        return blockType == Material.BELL ||
-                blockType == Material.COBBLESTONE ||
-                hasNearbyBlocks(location, 5, Material.BELL, Material.COBBLESTONE_WALL);
+    public ReplacementScheduler getReplacementScheduler() {
+        return replacementScheduler;
     }
 
-    private boolean isPillagerOutpostBase(Location location) {
-        return hasNearbyBlocks(location, 3, Material.DARK_OAK_LOG, Material.COBBLESTONE);
+    public ChunkWorkQueue getChunkQueue() {
+        return chunkQueue;
     }
 
-    private boolean isDesertPyramidBase(Location location) {
-        return location.getBlock().getType() == Material.SANDSTONE &&
-                hasNearbyBlocks(location, 5, Material.SANDSTONE);
+    public StructurePredictor getPredictor() {
+        return predictor;
     }
 
-    private boolean isJunglePyramidBase(Location location) {
-        return hasNearbyBlocks(location, 3, Material.COBBLESTONE, Material.MOSSY_COBBLESTONE);
-    }
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onStructureGrow(StructureGrowEvent event) {
+        if (!configManager.isEnabled()) {
+            return;
+        }
 
-    private boolean isIglooBase(Location location) {
-        return location.getBlock().getType() == Material.SNOW_BLOCK &&
-                hasNearbyBlocks(location, 3, Material.SNOW_BLOCK);
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info("Structure grow detected at " + event.getLocation());
+        }
     }
 
-    private boolean isWitchHutBase(Location location) {
-        return hasNearbyBlocks(location, 3, Material.SPRUCE_PLANKS, Material.CAULDRON);
-    }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkPopulate(org.bukkit.event.world.ChunkPopulateEvent event) {
+        if (!configManager.isEnabled()) {
+            return;
+        }
 
-    private boolean isOceanMonumentBase(Location location) {
-        return hasNearbyBlocks(location, 5, Material.PRISMARINE, Material.SEA_LANTERN);
+        // Jendela batch sekaligus memberi waktu sampai chunk fully populated
+        chunkQueue.add(event.getChunk());
     }
 
-    private boolean isWoodlandMansionBase(Location location) {
-        return hasNearbyBlocks(location, 5, Material.DARK_OAK_PLANKS, Material.COBBLESTONE);
-    }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(org.bukkit.event.world.ChunkLoadEvent event) {
+        if (!configManager.isEnabled()) {
+            return;
+        }
 
-    private boolean hasNearbyBlocks(Location center, int radius, Material... materials) {
-        World world = center.getWorld();
-        for (Material material : materials) {
-            for (int x = -radius; x <= radius; x++) {
-                for (int y = -radius; y <= radius; y++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        Location checkLoc = center.clone().add(x, y, z);
-                        if (world.getBlockAt(checkLoc).getType() == material) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        if (event.isNewChunk()) {
+            chunkQueue.add(event.getChunk());
+        } else {
+            // Chunk yang dulu tidak muat di antrian
+            chunkQueue.backfill(event.getChunk());
         }
-        return false;
     }
 
-    private int findGroundLevel(Location location) {
-        World world = location.getWorld();
-        int x = location.getBlockX();
-        int z = location.getBlockZ();
-
-        for (int y = world.getMaxHeight() - 1; y >= world.getMinHeight(); y--) {
-            Material blockType = world.getBlockAt(x, y, z).getType();
-            Material blockAbove = world.getBlockAt(x, y + 1, z).getType();
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(org.bukkit.event.world.ChunkUnloadEvent event) {
+        replacementScheduler.onChunkUnload(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
 
-            if (blockType.isSolid() && (blockAbove == Material.AIR || !blockAbove.isSolid())) {
-                return y;
-            }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldInit(org.bukkit.event.world.WorldInitEvent event) {
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info("World " + event.getWorld().getName() + " initialized. Structure replacement active.");
         }
-        return 64; // Default sea level
     }
 
     private int getStructureRadius(String structureName) {
@@ -344,20 +318,387 @@ public class StructureListener implements Listener {
         }
     }
 
+    /**
+     * Jarak terjauh antara dua titik deteksi dari instance yang sama. Heuristic bisa
+     * memakai penanda di ujung mana pun sebagai origin, jadi ini ukuran structure penuh.
+     */
+    private int getStructureExtent(String structureName) {
+        switch (structureName.toLowerCase()) {
+            case "village_plains":
+            case "village_desert":
+            case "village_savanna":
+            case "village_snowy":
+            case "village_taiga":
+                return StructureRegistry.CELL_SIZE;
+            case "woodland_mansion":
+            case "ocean_monument":
+                return 64;
+            case "pillager_outpost":
+                return 40;
+            case "desert_pyramid":
+            case "jungle_pyramid":
+                return 24;
+            default:
+                return Math.max(getStructureClearRadius(structureName), 16);
+        }
+    }
+
     private String formatLocation(Location loc) {
         return String.format("(%d, %d, %d)", loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
-    private void checkAndReplaceStructures(org.bukkit.Chunk chunk) {
-        World world = chunk.getWorld();
-        int chunkX = chunk.getX() * 16;
-        int chunkZ = chunk.getZ() * 16;
+    /**
+     * Deteksi untuk sekumpulan chunk berdekatan di world yang sama. Snapshot diambil
+     * sekali untuk seluruh area dan semua chunk dianalisis dalam satu task deteksi.
+     * Dengan wait (overflow policy block) deteksi dijalankan langsung di main thread.
+     */
+    private void checkAndReplaceBatch(World world, List<org.bukkit.Chunk> chunks, boolean wait) {
+        List<org.bukkit.Chunk> accepted = new ArrayList<>(chunks.size());
+        List<List<Map.Entry<String, String>>> acceptedReplacements = new ArrayList<>(chunks.size());
+        // Scan structure start yang sudah dibaca di loop (tanpa snapshot), per chunk accepted
+        Map<org.bukkit.Chunk, ChunkScan> structureScans = new java.util.IdentityHashMap<>();
+        boolean generated = useGeneratedStructures(world);
+
+        for (org.bukkit.Chunk chunk : chunks) {
+            // Grid penempatan vanilla: cukup dari biome dan seed, tanpa membaca block
+            List<Map.Entry<String, String>> activeReplacements = filterByPlacement(chunk, selectByBiome(chunk));
+            if (activeReplacements.isEmpty()) {
+                continue;
+            }
+
+            if (configManager.isCacheEnabled() && ledger.isDecided(chunk)) {
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Chunk [" + chunk.getX() + "," + chunk.getZ() + "] already analysed, skipping");
+                }
+                continue;
+            }
+
+            // Populate dan load bisa menjadwalkan chunk yang sama dua kali
+            if (!ledger.begin(chunk)) {
+                continue;
+            }
+
+            // Backend structure start tanpa replacement heuristic: cukup satu lookup metadata,
+            // dan chunk tanpa structure langsung diputuskan tanpa snapshot dan tanpa batch
+            if (generated && !needsBlockScan(activeReplacements)) {
+                ChunkScan scan = ChunkScan.captureStructures(chunk);
+                if (scan.getStructures().isEmpty()) {
+                    if (configManager.isCacheEnabled()) {
+                        ledger.record(world, chunk.getX(), chunk.getZ(), ChunkLedger.State.SCANNED);
+                    } else {
+                        ledger.release(world, chunk.getX(), chunk.getZ());
+                    }
+                    continue;
+                }
+                structureScans.put(chunk, scan);
+            }
+
+            if (configManager.isDebugEnabled()) {
+                plugin.getLogger().info("Checking chunk [" + chunk.getX() + "," + chunk.getZ() + "] for structures...");
+            }
+
+            accepted.add(chunk);
+            acceptedReplacements.add(activeReplacements);
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // Pool sudah penuh: jangan ambil snapshot yang hanya akan ditolak
+        if (!wait && configManager.isAsyncProcessingEnabled() && detectionExecutor.getQueue().remainingCapacity() == 0) {
+            requeue(accepted);
+            return;
+        }
+
+        // Snapshot diambil di main thread; semua scanning setelah ini tidak menyentuh World
+        DetectionBatch batch = captureBatch(world, accepted, acceptedReplacements, structureScans);
+
+        if (wait || !configManager.isAsyncProcessingEnabled()) {
+            batch.detect();
+            batch.complete();
+            return;
+        }
+
+        // Tanda PENDING tersimpan di chunk sebelum batch meninggalkan main thread. Jika server
+        // berhenti sebelum complete() (shutdownNow membuang batch dan callback-nya), chunk
+        // tetap di-backfill saat di-load lagi; complete() menimpanya dengan hasil akhir.
+        if (configManager.isCacheEnabled()) {
+            for (org.bukkit.Chunk chunk : accepted) {
+                ledger.markPending(chunk);
+            }
+        }
+
+        try {
+            detectionExecutor.execute(() -> {
+                try {
+                    batch.detect();
+
+                    // Hasil kembali ke main thread untuk dicatat di ledger dan dijadwalkan
+                    if (plugin.isEnabled()) {
+                        Bukkit.getScheduler().runTask(plugin, batch::complete);
+                    }
+                } catch (Exception e) {
+                    batch.release();
+                    plugin.getLogger().log(Level.WARNING, "Async structure detection failed for " + batch.describe(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Antrian async penuh; scan di main thread justru yang ingin dihindari saat pregen
+            requeue(accepted);
+        }
+    }
 
+    /**
+     * Kembalikan chunk ke antrian kerja saat pool deteksi penuh. Tanda in-flight di ledger
+     * dilepas, jadi chunk diproses lagi setelah jendela batch berikutnya.
+     */
+    private void requeue(List<org.bukkit.Chunk> chunks) {
         if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("Checking chunk [" + chunk.getX() + "," + chunk.getZ() + "] for structures...");
+            plugin.getLogger().warning("Detection queue full, re-queueing " + chunks.size() + " chunks");
         }
 
-        for (Map.Entry<String, String> replacement : replacements.entrySet()) {
+        for (org.bukkit.Chunk chunk : chunks) {
+            ledger.release(chunk.getWorld(), chunk.getX(), chunk.getZ());
+            chunkQueue.add(chunk);
+        }
+    }
+
+    /**
+     * Ambil data structure start jika backend-nya dipakai untuk world ini. Untuk heuristic,
+     * semua chunk batch plus satu cincin tetangga di-snapshot sekali ke ChunkArea bersama,
+     * karena origin search membaca melewati batas chunk.
+     */
+    private DetectionBatch captureBatch(World world, List<org.bukkit.Chunk> chunks,
+                                        List<List<Map.Entry<String, String>>> replacementsPerChunk,
+                                        Map<org.bukkit.Chunk, ChunkScan> structureScans) {
+        int surfaceScanDepth = configManager.getSurfaceScanDepth();
+        List<ChunkScan> scans = new ArrayList<>(chunks.size());
+
+        if (useGeneratedStructures(world)) {
+            for (org.bukkit.Chunk chunk : chunks) {
+                // Snapshot hanya untuk chunk yang juga punya replacement heuristic
+                ChunkScan scan = structureScans.get(chunk);
+                if (scan == null) {
+                    scan = ChunkScan.captureWithStructures(chunk, 0);
+                }
+                scans.add(scan.withSurfaceScanDepth(surfaceScanDepth));
+            }
+            return new DetectionBatch(null, scans, replacementsPerChunk);
+        }
+
+        ChunkArea area = ChunkArea.capture(world, chunks, 1);
+        for (org.bukkit.Chunk chunk : chunks) {
+            scans.add(ChunkScan.fromArea(area, chunk.getX(), chunk.getZ(), 1).withSurfaceScanDepth(surfaceScanDepth));
+        }
+        return new DetectionBatch(area, scans, replacementsPerChunk);
+    }
+
+    /**
+     * Satu batch deteksi: scan per chunk, hasilnya, dan analisis terrain yang sudah
+     * bisa dihitung dari snapshot area bersama.
+     */
+    private class DetectionBatch {
+        private final ChunkArea area;
+        private final List<ChunkScan> scans;
+        private final List<List<Map.Entry<String, String>>> replacementsPerChunk;
+        private final List<List<DetectedStructure>> results = new ArrayList<>();
+        private final Map<DetectedStructure, TerrainAnalysis> analyses = new java.util.IdentityHashMap<>();
+        // Semua claim registry batch ini; setelah complete() dimiliki oleh job masing-masing
+        private final List<DetectedStructure> claims = new ArrayList<>();
+
+        DetectionBatch(ChunkArea area, List<ChunkScan> scans, List<List<Map.Entry<String, String>>> replacementsPerChunk) {
+            this.area = area;
+            this.scans = scans;
+            this.replacementsPerChunk = replacementsPerChunk;
+        }
+
+        /**
+         * Jalankan deteksi untuk semua chunk. Aman dari thread manapun.
+         */
+        void detect() {
+            results.clear();
+            for (int i = 0; i < scans.size(); i++) {
+                List<DetectedStructure> detected = detectStructures(scans.get(i), replacementsPerChunk.get(i), claims);
+                results.add(detected);
+
+                if (area == null) {
+                    continue;
+                }
+
+                // Analisis terrain dari snapshot jika seluruh radius analisis ada di area
+                for (DetectedStructure structure : detected) {
+                    Location center = structure.location;
+                    int radius = getAnalysisRadius(structure.vanillaStructure);
+                    if (area.covers(center.getBlockX() - radius, center.getBlockZ() - radius,
+                            center.getBlockX() + radius, center.getBlockZ() + radius) &&
+                            area.getBiome(center.getBlockX(), center.getBlockY(), center.getBlockZ()) != null) {
+                        analyses.put(structure, analyzeTerrainAround(center, structure.vanillaStructure, area));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Catat hasil di ledger lalu jadwalkan replacement. Harus di main thread.
+         */
+        void complete() {
+            for (int i = 0; i < scans.size(); i++) {
+                ChunkScan scan = scans.get(i);
+                List<DetectedStructure> detected = results.get(i);
+
+                // Chunk dengan structure tetap PENDING sampai semua replacement-nya benar-benar selesai
+                if (configManager.isCacheEnabled()) {
+                    ChunkLedger.State state = detected.isEmpty() ? ChunkLedger.State.SCANNED : ChunkLedger.State.PENDING;
+                    ledger.record(scan.getWorld(), scan.getChunkX(), scan.getChunkZ(), state);
+                } else {
+                    ledger.release(scan.getWorld(), scan.getChunkX(), scan.getChunkZ());
+                }
+
+                if (detected.isEmpty()) {
+                    continue;
+                }
+
+                ChunkOutcome outcome = new ChunkOutcome(scan.getWorld(), scan.getChunkX(), scan.getChunkZ(), detected.size());
+                for (DetectedStructure structure : detected) {
+                    // Multiple-stage replacement untuk hasil yang lebih natural, dicicil oleh scheduler
+                    replacementScheduler.submit(new NaturalReplacementJob(structure, analyses.get(structure), outcome));
+                }
+            }
+        }
+
+        /**
+         * Lepas tanda in-flight dan claim registry saat deteksi gagal, supaya instance
+         * yang sama bisa dideteksi lagi
+         */
+        void release() {
+            for (ChunkScan scan : scans) {
+                ledger.release(scan.getWorld(), scan.getChunkX(), scan.getChunkZ());
+            }
+            for (DetectedStructure structure : claims) {
+                structureRegistry.release(structure.vanillaStructure, structure.location);
+            }
+            claims.clear();
+        }
+
+        String describe() {
+            ChunkScan first = scans.get(0);
+            return scans.size() == 1
+                    ? "chunk [" + first.getChunkX() + "," + first.getChunkZ() + "]"
+                    : scans.size() + " chunks near [" + first.getChunkX() + "," + first.getChunkZ() + "]";
+        }
+    }
+
+    /**
+     * Hasil akhir semua replacement dari satu chunk. Ledger baru ditulis REPLACED setelah
+     * job terakhir selesai; jika ada yang gagal, dibatalkan atau hilang saat shutdown,
+     * chunk tetap PENDING dan di-backfill saat di-load lagi. Hanya dipakai dari main thread.
+     */
+    private class ChunkOutcome {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+        private int remaining;
+        private boolean failed;
+
+        ChunkOutcome(World world, int chunkX, int chunkZ, int jobs) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.remaining = jobs;
+        }
+
+        void finish(boolean completed) {
+            failed |= !completed;
+            if (--remaining > 0 || !configManager.isCacheEnabled()) {
+                return;
+            }
+
+            if (!failed) {
+                ledger.record(world, chunkX, chunkZ, ChunkLedger.State.REPLACED);
+            } else if (world.isChunkLoaded(chunkX, chunkZ)) {
+                ledger.markPending(world.getChunkAt(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * Buang replacement yang tidak mungkin punya structure start di sekitar chunk ini
+     */
+    private List<Map.Entry<String, String>> filterByPlacement(org.bukkit.Chunk chunk, List<Map.Entry<String, String>> candidates) {
+        World world = chunk.getWorld();
+        // Backend structure start hanya membaca metadata; grid tidak menghemat apa pun di sana
+        if (useGeneratedStructures(world) || !placementGrid.appliesTo(world)) {
+            return candidates;
+        }
+
+        List<Map.Entry<String, String>> possible = new ArrayList<>(candidates.size());
+        for (Map.Entry<String, String> replacement : candidates) {
+            if (placementGrid.canContainStructure(world, chunk.getX(), chunk.getZ(), replacement.getKey())) {
+                possible.add(replacement);
+            }
+        }
+        return possible;
+    }
+
+    private boolean useGeneratedStructures(World world) {
+        switch (configManager.getDetectionBackend()) {
+            case "structures":
+                return true;
+            case "heuristic":
+                return false;
+            default:
+                // auto: custom generator belum tentu menyimpan structure start vanilla
+                return world.getGenerator() == null;
+        }
+    }
+
+    /**
+     * True jika ada replacement yang tidak dikenal backend structure start, sehingga
+     * jatuh ke heuristic yang membaca block dari snapshot
+     */
+    private boolean needsBlockScan(List<Map.Entry<String, String>> replacements) {
+        for (Map.Entry<String, String> replacement : replacements) {
+            if (!GeneratedStructureDetector.isKnownStructure(replacement.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private StructureDetector selectDetector(ChunkScan scan, String vanillaStructure) {
+        if (generatedStructureDetector.supports(scan) && GeneratedStructureDetector.isKnownStructure(vanillaStructure)) {
+            return generatedStructureDetector;
+        }
+        return heuristicDetector;
+    }
+
+    /**
+     * Jalankan deteksi untuk semua replacement. Aman dipanggil dari thread manapun
+     * karena hanya membaca dari ChunkScan.
+     */
+    private List<DetectedStructure> detectStructures(ChunkScan scan, List<Map.Entry<String, String>> activeReplacements,
+                                                     List<DetectedStructure> claims) {
+        List<DetectedStructure> detected = new ArrayList<>();
+
+        // Pre-pass kolom hanya untuk heuristic; backend structure start tidak membaca block
+        ColumnSampler.Mode samplingMode = scan.hasStructureData() ? ColumnSampler.Mode.OFF : configManager.getColumnSamplingMode();
+        boolean sampleHadMarkers = true;
+        if (samplingMode != ColumnSampler.Mode.OFF) {
+            sampleHadMarkers = columnSampler.hasMarkers(scan, configManager.getColumnSampleSize(),
+                    configManager.getColumnSampleBand(), heuristicDetector::isMarker);
+
+            if (!sampleHadMarkers && samplingMode == ColumnSampler.Mode.ENFORCE) {
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Column sample found no markers in chunk [" + scan.getChunkX() + "," +
+                            scan.getChunkZ() + "], skipping full scan");
+                }
+                return detected;
+            }
+        }
+        boolean anyFound = false;
+
+        for (Map.Entry<String, String> replacement : activeReplacements) {
             String vanillaStructure = replacement.getKey();
             String customStructure = replacement.getValue();
 
@@ -368,75 +709,246 @@ public class StructureListener implements Listener {
                 continue;
             }
 
-            if (mightContainStructure(chunk, vanillaStructure)) {
-                if (configManager.isDebugEnabled()) {
-                    plugin.getLogger().info("Potential " + vanillaStructure + " detected in chunk [" + chunk.getX() + "," + chunk.getZ() + "]");
-                }
+            long started = System.nanoTime();
+            Location structureLocation = selectDetector(scan, vanillaStructure).findStructure(scan, vanillaStructure);
+            detectorStats.record(detectorKey(vanillaStructure), System.nanoTime() - started, structureLocation == null);
 
-                Location structureLocation = findStructureInChunk(chunk, vanillaStructure);
+            if (structureLocation != null) {
+                anyFound = true;
 
-                if (structureLocation != null) {
+                // Structure multi-chunk cukup di-replace sekali
+                if (!structureRegistry.claim(vanillaStructure, structureLocation, getStructureExtent(vanillaStructure))) {
                     if (configManager.isDebugEnabled()) {
-                        plugin.getLogger().info("Confirmed " + vanillaStructure + " at " + formatLocation(structureLocation) +
-                                ", replacing with " + customStructure);
+                        plugin.getLogger().info("Skipping " + vanillaStructure + " at " + formatLocation(structureLocation) +
+                                ", already part of a detected instance");
                     }
+                    continue;
+                }
 
-                    // Multiple-stage replacement untuk hasil yang lebih natural
-                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                        performNaturalStructureReplacement(structureLocation, vanillaStructure, customStructure);
-                    }, 10L); // Delay lebih lama untuk proses yang lebih kompleks
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Confirmed " + vanillaStructure + " at " + formatLocation(structureLocation) +
+                            ", replacing with " + customStructure);
                 }
+
+                DetectedStructure structure = new DetectedStructure(vanillaStructure, customStructure, structureLocation);
+                // Dicatat langsung supaya claim bisa dilepas jika deteksi gagal di tengah batch
+                claims.add(structure);
+                detected.add(structure);
             }
         }
+
+        if (samplingMode == ColumnSampler.Mode.SHADOW) {
+            columnSampler.recordOutcome(sampleHadMarkers, anyFound);
+        }
+
+        return detected;
     }
 
     /**
-     * Performs natural structure replacement dengan multiple stages
+     * Natural structure replacement yang dipecah per langkah:
+     * analisis, clearing per baris, paste per batch, lalu integrasi dengan sekitar
      */
-    private void performNaturalStructureReplacement(Location structureLocation, String vanillaStructure, String customStructure) {
-        try {
-            if (configManager.isDebugEnabled()) {
-                plugin.getLogger().info("Starting natural replacement process for " + vanillaStructure);
+    private class NaturalReplacementJob implements ReplacementJob {
+        private final DetectedStructure structure;
+        private final ChunkOutcome outcome;
+        private final Random random = new Random();
+        private int stage;
+        private long resumeTick;
+
+        private TerrainAnalysis analysis;
+        private int clearRadius;
+        private int clearX;
+        private Location adjustedLocation;
+        private StructureManager.StructurePaste paste;
+        private int integrationStep;
+        private StructureTemplate template;
+        private StructurePredictor.Plan plan;
+        private boolean templateLoaded;
+        private ChunkFootprint footprint;
+
+        private boolean failed;
+        private boolean finished;
+
+        NaturalReplacementJob(DetectedStructure structure, TerrainAnalysis analysis, ChunkOutcome outcome) {
+            this.structure = structure;
+            this.analysis = analysis;
+            this.outcome = outcome;
+
+            // Template dari rencana predictor atau cache; selain itu dibaca di luar main thread,
+            // dan job baru dipromosikan setelah ukurannya diketahui untuk footprint
+            plan = predictor.claimPlan(structure.vanillaStructure, structure.customStructure, structure.location);
+            template = plan != null ? plan.template : structureManager.getCachedTemplate(structure.customStructure);
+            templateLoaded = template != null;
+            if (!templateLoaded) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                    StructureTemplate loaded;
+                    try {
+                        loaded = structureManager.getTemplate(structure.customStructure);
+                    } catch (IOException e) {
+                        // Paste di stage 2 akan mencoba lagi dan mencatat kegagalannya
+                        loaded = null;
+                    }
+                    StructureTemplate result = loaded;
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        template = result;
+                        templateLoaded = true;
+                    });
+                });
             }
+        }
 
-            // Stage 1: Pre-analysis - analyze surrounding terrain
-            TerrainAnalysis analysis = analyzeTerrainAround(structureLocation, vanillaStructure);
+        @Override
+        public boolean step() {
+            switch (stage) {
+                case 0:
+                    if (configManager.isDebugEnabled()) {
+                        plugin.getLogger().info("Starting natural replacement process for " + structure.vanillaStructure);
+                    }
 
-            // Stage 2: Smart clearing - only clear what's necessary
-            performSmartClearing(structureLocation, vanillaStructure, analysis);
+                    // Stage 1: Pre-analysis - analyze surrounding terrain (batch deteksi mungkin sudah menghitungnya)
+                    if (analysis == null) {
+                        analysis = analyzeTerrainAround(structure.location, structure.vanillaStructure, null);
+                    }
+                    clearRadius = getSmartClearRadius(structure.vanillaStructure, analysis.elevationVariance);
+                    clearX = -clearRadius;
 
-            // Stage 3: Place structure with adaptation
-            Location adjustedLocation = calculateOptimalPlacement(structureLocation, vanillaStructure, analysis);
+                    if (configManager.isDebugEnabled()) {
+                        plugin.getLogger().info("Smart clearing with radius " + clearRadius + " for " + structure.vanillaStructure);
+                    }
+                    stage++;
+                    return false;
+
+                case 1:
+                    // Stage 2: Smart clearing - satu baris x per langkah
+                    clearRow(structure.location, structure.vanillaStructure, analysis, clearX, clearRadius, random);
+                    if (++clearX > clearRadius) {
+                        stage++;
+                    }
+                    return false;
+
+                case 2:
+                    // Stage 3: Place structure with adaptation
+                    if (template == null) {
+                        // Template gagal dibaca async; tidak dibaca ulang di main thread
+                        plugin.getLogger().warning("Failed to place custom structure " + structure.customStructure +
+                                ": structure file could not be loaded");
+                        failed = true;
+                        return true;
+                    }
+                    adjustedLocation = calculateOptimalPlacement(structure.location, structure.vanillaStructure, analysis);
+                    if (plan == null) {
+                        paste = structureManager.beginPaste(template, adjustedLocation, true);
+                    } else {
+                        paste = structureManager.beginPaste(template, adjustedLocation, true, plan.biome, plan.adaptation);
+                        if (paste.usesPreparedAdaptation()) {
+                            predictor.recordHit();
+                            if (configManager.isDebugEnabled()) {
+                                plugin.getLogger().info("Using predicted plan for " + structure.vanillaStructure + " at " +
+                                        formatLocation(adjustedLocation));
+                            }
+                        }
+                        plan = null;
+                    }
+                    stage++;
+                    return false;
+
+                case 3:
+                    if (paste.step(configManager.getBlocksPerStep())) {
+                        // Stage 4 menunggu sebentar sampai structure selesai ditempatkan
+                        resumeTick = replacementScheduler.getCurrentTick() + 20L;
+                        stage++;
+                    }
+                    return false;
+
+                default:
+                    // Stage 4: Post-placement integration, satu jenis detail per langkah
+                    integrateWithSurroundings(adjustedLocation, structure.customStructure, analysis, integrationStep++);
+                    if (integrationStep < 4) {
+                        return false;
+                    }
+
+                    if (configManager.isDebugEnabled()) {
+                        plugin.getLogger().info("Successfully replaced " + structure.vanillaStructure + " with " +
+                                structure.customStructure + " using natural integration at " + formatLocation(adjustedLocation));
+                    }
+                    return true;
+            }
+        }
+
+        @Override
+        public long getResumeTick() {
+            return resumeTick;
+        }
+
+        @Override
+        public void onFinished(boolean completed) {
+            if (!finished) {
+                finished = true;
+                // Instance yang tidak jadi diganti boleh dideteksi lagi saat chunk-nya di-backfill
+                if (!completed || failed) {
+                    structureRegistry.release(structure.vanillaStructure, structure.location);
+                }
+                outcome.finish(completed && !failed);
+            }
+        }
 
-            // Use enhanced structure manager with terrain adaptation
-            structureManager.pasteStructureWithAdaptation(customStructure, adjustedLocation, true);
+        @Override
+        public Location getLocation() {
+            return structure.location;
+        }
 
-            // Stage 4: Post-placement integration
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                integrateWithSurroundings(adjustedLocation, customStructure, analysis);
-            }, 20L); // Wait for structure to be placed
+        /**
+         * Semua bacaan dan perubahan job ini: analisis, clearing, integrasi di sekitar titik
+         * deteksi, adaptasi terrain, plus ukuran template ke arah x/z positif
+         */
+        @Override
+        public boolean isReady() {
+            return templateLoaded;
+        }
 
-            if (configManager.isDebugEnabled()) {
-                plugin.getLogger().info("Successfully replaced " + vanillaStructure + " with " + customStructure +
-                        " using natural integration at " + formatLocation(adjustedLocation));
+        @Override
+        public ChunkFootprint getFootprint() {
+            if (footprint == null && templateLoaded) {
+                String name = structure.vanillaStructure;
+                int radius = Math.max(Math.max(getAnalysisRadius(name), getStructureClearRadius(name)),
+                        Math.max(getStructureRadius(name) + 5, terrainAdapter.getFootprintRadius(structure.customStructure)));
+                int extraX = template == null ? 0 : template.width + 1;
+                int extraZ = template == null ? 0 : template.length + 1;
+                footprint = ChunkFootprint.around(structure.location, radius, extraX, extraZ);
             }
+            return footprint;
+        }
+
+        /**
+         * Bisa dibatalkan di batas langkah manapun sebelum paste dimulai. Clearing yang
+         * sudah berjalan dikerjakan ulang saat chunk-nya di-backfill; setelah paste dimulai,
+         * structure setengah jadi harus diselesaikan.
+         */
+        @Override
+        public boolean cancel() {
+            return stage < 2;
+        }
 
-        } catch (IOException e) {
-            plugin.getLogger().warning("Failed to place custom structure " + customStructure + ": " + e.getMessage());
-        } catch (Exception e) {
-            plugin.getLogger().severe("Unexpected error during natural structure replacement: " + e.getMessage());
+        @Override
+        public String describe() {
+            String progress = paste == null ? "" : " " + paste.getPlacedBlocks() + "/" + paste.getTotalBlocks() + " blocks";
+            return structure.vanillaStructure + " -> " + structure.customStructure + " at " +
+                    formatLocation(structure.location) + " (stage " + (stage + 1) + progress + ")";
         }
     }
 
     /**
-     * Analyze terrain around structure location
+     * Analyze terrain around structure location. Dengan area, semua bacaan diambil dari
+     * snapshot batch (aman di thread deteksi); tanpa area, langsung dari world.
      */
-    private TerrainAnalysis analyzeTerrainAround(Location center, String structureName) {
+    private TerrainAnalysis analyzeTerrainAround(Location center, String structureName, ChunkArea area) {
         World world = center.getWorld();
         TerrainAnalysis analysis = new TerrainAnalysis();
 
         int radius = getAnalysisRadius(structureName);
-        analysis.biome = world.getBiome(center.getBlockX(), center.getBlockY(), center.getBlockZ());
+        analysis.biome = area != null
+                ? area.getBiome(center.getBlockX(), center.getBlockY(), center.getBlockZ())
+                : world.getBiome(center.getBlockX(), center.getBlockY(), center.getBlockZ());
         analysis.centerLocation = center.clone();
 
         // Analyze elevation points
@@ -445,7 +957,7 @@ public class StructureListener implements Listener {
             int x = (int) (center.getX() + radius * Math.cos(radians));
             int z = (int) (center.getZ() + radius * Math.sin(radians));
 
-            int groundLevel = findGroundLevel(new Location(world, x, 64, z));
+            int groundLevel = area != null ? area.getGroundLevel(groundHeights, x, z) : groundHeights.getGroundLevel(world, x, z);
             analysis.elevationPoints.add(groundLevel);
         }
 
@@ -456,7 +968,7 @@ public class StructureListener implements Listener {
         analysis.elevationVariance = analysis.maxElevation - analysis.minElevation;
 
         // Analyze dominant materials in area
-        analysis.dominantMaterials = analyzeDominantMaterials(center, radius);
+        analysis.dominantMaterials = analyzeDominantMaterials(center, radius, area);
 
         if (configManager.isDebugEnabled()) {
             plugin.getLogger().info("Terrain analysis: Biome=" + analysis.biome +
@@ -467,7 +979,7 @@ public class StructureListener implements Listener {
         return analysis;
     }
 
-    private Map<Material, Integer> analyzeDominantMaterials(Location center, int radius) {
+    private Map<Material, Integer> analyzeDominantMaterials(Location center, int radius, ChunkArea area) {
         Map<Material, Integer> materialCount = new java.util.HashMap<>();
         World world = center.getWorld();
         Random random = new Random();
@@ -476,42 +988,35 @@ public class StructureListener implements Listener {
         for (int i = 0; i < 50; i++) {
             int x = (int) (center.getX() + (random.nextDouble() - 0.5) * radius * 2);
             int z = (int) (center.getZ() + (random.nextDouble() - 0.5) * radius * 2);
-            int y = findGroundLevel(new Location(world, x, 64, z));
-
-            Material groundMaterial = world.getBlockAt(x, y, z).getType();
-            materialCount.put(groundMaterial, materialCount.getOrDefault(groundMaterial, 0) + 1);
+            Material groundMaterial;
+            if (area != null) {
+                groundMaterial = area.getType(x, area.getGroundLevel(groundHeights, x, z), z);
+            } else {
+                groundMaterial = world.getBlockAt(x, groundHeights.getGroundLevel(world, x, z), z).getType();
+            }
+            if (groundMaterial != null) {
+                materialCount.put(groundMaterial, materialCount.getOrDefault(groundMaterial, 0) + 1);
+            }
         }
 
         return materialCount;
     }
 
     /**
-     * Smart clearing yang hanya clear area yang benar-benar diperlukan
+     * Smart clearing yang hanya clear area yang benar-benar diperlukan, satu baris x per panggilan
      */
-    private void performSmartClearing(Location location, String structureName, TerrainAnalysis analysis) {
-        int clearRadius = getSmartClearRadius(structureName, analysis.elevationVariance);
-        World world = location.getWorld();
-
-        if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("Smart clearing with radius " + clearRadius + " for " + structureName);
-        }
-
-        // Clear dengan pattern yang lebih natural
-        Random random = new Random();
-
-        for (int x = -clearRadius; x <= clearRadius; x++) {
-            for (int z = -clearRadius; z <= clearRadius; z++) {
-                int distance = (int) Math.sqrt(x * x + z * z);
-
-                if (distance <= clearRadius) {
-                    // Probabilitas clearing menurun dengan jarak
-                    double clearProbability = 1.0 - ((double) distance / clearRadius);
-                    clearProbability = Math.pow(clearProbability, 1.5); // Smooth falloff
-
-                    if (random.nextDouble() < clearProbability) {
-                        Location clearLoc = location.clone().add(x, 0, z);
-                        clearVerticallyAtLocation(clearLoc, structureName, analysis);
-                    }
+    private void clearRow(Location location, String structureName, TerrainAnalysis analysis, int x, int clearRadius, Random random) {
+        for (int z = -clearRadius; z <= clearRadius; z++) {
+            int distance = (int) Math.sqrt(x * x + z * z);
+
+            if (distance <= clearRadius) {
+                // Probabilitas clearing menurun dengan jarak
+                double clearProbability = 1.0 - ((double) distance / clearRadius);
+                clearProbability = Math.pow(clearProbability, 1.5); // Smooth falloff
+
+                if (random.nextDouble() < clearProbability) {
+                    Location clearLoc = location.clone().add(x, 0, z);
+                    clearVerticallyAtLocation(clearLoc, structureName, analysis);
                 }
             }
         }
@@ -519,7 +1024,7 @@ public class StructureListener implements Listener {
 
     private void clearVerticallyAtLocation(Location location, String structureName, TerrainAnalysis analysis) {
         World world = location.getWorld();
-        int groundLevel = findGroundLevel(location);
+        int groundLevel = groundHeights.getGroundLevel(location);
         int clearHeight = getClearHeight(structureName);
 
         // Clear dari ground level ke atas
@@ -562,7 +1067,7 @@ public class StructureListener implements Listener {
             optimal.setY(analysis.avgElevation);
         } else {
             // Low variance - use standard adjustment
-            optimal.setY(findGroundLevel(original));
+            optimal.setY(groundHeights.getGroundLevel(original));
         }
 
         // Fine-tune based on structure type
@@ -602,7 +1107,7 @@ public class StructureListener implements Listener {
 
             case "witch_hut":
                 // Witch huts in swamps, prefer water level
-                if (analysis.biome.toString().contains("SWAMP")) {
+                if (biomeClassifier.is(analysis.biome, BiomeFamily.SWAMP)) {
                     adjusted.setY(Math.max(62, analysis.avgElevation));
                 } else {
                     adjusted.setY(analysis.avgElevation + 1);
@@ -633,24 +1138,31 @@ public class StructureListener implements Listener {
     }
 
     /**
-     * Integrate structure with surroundings after placement
+     * Integrate structure with surroundings after placement, dipecah menjadi 4 langkah
      */
-    private void integrateWithSurroundings(Location structureLocation, String structureName, TerrainAnalysis analysis) {
-        if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("Integrating " + structureName + " with surroundings");
-        }
-
-        // Add connecting elements
-        addConnectingPaths(structureLocation, structureName, analysis);
-
-        // Blend edges
-        blendStructureEdges(structureLocation, structureName, analysis);
-
-        // Add environmental details
-        addEnvironmentalDetails(structureLocation, structureName, analysis);
+    private void integrateWithSurroundings(Location structureLocation, String structureName, TerrainAnalysis analysis, int step) {
+        switch (step) {
+            case 0:
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Integrating " + structureName + " with surroundings");
+                }
 
-        // Add random natural elements
-        addRandomNaturalElements(structureLocation, structureName, analysis);
+                // Add connecting elements
+                addConnectingPaths(structureLocation, structureName, analysis);
+                break;
+            case 1:
+                // Blend edges
+                blendStructureEdges(structureLocation, structureName, analysis);
+                break;
+            case 2:
+                // Add environmental details
+                addEnvironmentalDetails(structureLocation, structureName, analysis);
+                break;
+            default:
+                // Add random natural elements
+                addRandomNaturalElements(structureLocation, structureName, analysis);
+                break;
+        }
     }
 
     private void addConnectingPaths(Location center, String structureName, TerrainAnalysis analysis) {
@@ -685,7 +1197,7 @@ public class StructureListener implements Listener {
             z += Math.sin(angle) * (0.7 + random.nextDouble() * 0.6);
 
             Location pathLoc = start.clone().add(x, 0, z);
-            int groundY = findGroundLevel(pathLoc);
+            int groundY = groundHeights.getGroundLevel(pathLoc);
             pathLoc.setY(groundY);
 
             // Create path with random width
@@ -728,7 +1240,7 @@ public class StructureListener implements Listener {
 
     private void blendLocationWithTerrain(Location location, TerrainAnalysis analysis, Random random) {
         World world = location.getWorld();
-        int groundY = findGroundLevel(location);
+        int groundY = groundHeights.getGroundLevel(location);
 
         // Add some terrain variation
         if (random.nextDouble() < 0.3) {
@@ -758,7 +1270,7 @@ public class StructureListener implements Listener {
 
             int x = (int) (center.getX() + Math.cos(angle) * distance);
             int z = (int) (center.getZ() + Math.sin(angle) * distance);
-            int y = findGroundLevel(new Location(world, x, 64, z));
+            int y = groundHeights.getGroundLevel(world, x, z);
 
             Location detailLoc = new Location(world, x, y + 1, z);
             Block detailBlock = world.getBlockAt(detailLoc);
@@ -804,7 +1316,7 @@ public class StructureListener implements Listener {
 
             int x = (int) (center.getX() + Math.cos(angle) * distance);
             int z = (int) (center.getZ() + Math.sin(angle) * distance);
-            int y = findGroundLevel(new Location(world, x, 64, z));
+            int y = groundHeights.getGroundLevel(world, x, z);
 
             // Create small boulder cluster
             int boulderSize = random.nextInt(2) + 1;
@@ -833,7 +1345,7 @@ public class StructureListener implements Listener {
 
         int x = (int) (center.getX() + Math.cos(angle) * distance);
         int z = (int) (center.getZ() + Math.sin(angle) * distance);
-        int y = findGroundLevel(new Location(world, x, 64, z)) - 1;
+        int y = groundHeights.getGroundLevel(world, x, z) - 1;
 
         // Create small water feature
         int featureSize = random.nextInt(3) + 2;
@@ -873,7 +1385,7 @@ public class StructureListener implements Listener {
             for (int j = 0; j < clusterSize * clusterSize; j++) {
                 int x = centerX + random.nextInt(clusterSize) - clusterSize / 2;
                 int z = centerZ + random.nextInt(clusterSize) - clusterSize / 2;
-                int y = findGroundLevel(new Location(world, x, 64, z));
+                int y = groundHeights.getGroundLevel(world, x, z);
 
                 Block vegBlock = world.getBlockAt(x, y + 1, z);
                 Block groundBlock = world.getBlockAt(x, y, z);
@@ -890,14 +1402,12 @@ public class StructureListener implements Listener {
 
     // Helper methods untuk material selection
     private Material getPathMaterialForBiome(Biome biome) {
-        String biomeName = biome.toString().toUpperCase();
-
-        if (biomeName.contains("DESERT")) return Material.SANDSTONE;
-        if (biomeName.contains("SNOWY")) return Material.PACKED_ICE;
-        if (biomeName.contains("SWAMP")) return Material.MUD;
-        if (biomeName.contains("TAIGA")) return Material.COARSE_DIRT;
-        if (biomeName.contains("SAVANNA")) return Material.COARSE_DIRT;
-        if (biomeName.contains("JUNGLE")) return Material.PODZOL;
+        if (biomeClassifier.is(biome, BiomeFamily.DESERT)) return Material.SANDSTONE;
+        if (biomeClassifier.is(biome, BiomeFamily.SNOWY)) return Material.PACKED_ICE;
+        if (biomeClassifier.is(biome, BiomeFamily.SWAMP)) return Material.MUD;
+        if (biomeClassifier.is(biome, BiomeFamily.TAIGA)) return Material.COARSE_DIRT;
+        if (biomeClassifier.is(biome, BiomeFamily.SAVANNA)) return Material.COARSE_DIRT;
+        if (biomeClassifier.is(biome, BiomeFamily.JUNGLE)) return Material.PODZOL;
 
         return Material.DIRT_PATH; // Default
     }
@@ -910,21 +1420,19 @@ public class StructureListener implements Listener {
     }
 
     private Material getEnvironmentalDetail(Biome biome, Random random) {
-        String biomeName = biome.toString().toUpperCase();
-
-        if (biomeName.contains("DESERT")) {
+        if (biomeClassifier.is(biome, BiomeFamily.DESERT)) {
             Material[] details = {Material.DEAD_BUSH, Material.CACTUS};
             return details[random.nextInt(details.length)];
-        } else if (biomeName.contains("JUNGLE")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.JUNGLE)) {
             Material[] details = {Material.JUNGLE_SAPLING, Material.COCOA, Material.VINE};
             return details[random.nextInt(details.length)];
-        } else if (biomeName.contains("TAIGA")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.TAIGA)) {
             Material[] details = {Material.FERN, Material.LARGE_FERN, Material.SWEET_BERRY_BUSH};
             return details[random.nextInt(details.length)];
-        } else if (biomeName.contains("PLAINS")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.PLAINS)) {
             Material[] details = {Material.SHORT_GRASS, Material.DANDELION, Material.POPPY};
             return details[random.nextInt(details.length)];
-        } else if (biomeName.contains("SWAMP")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.SWAMP)) {
             Material[] details = {Material.BROWN_MUSHROOM, Material.RED_MUSHROOM, Material.LILY_PAD};
             return details[random.nextInt(details.length)];
         }
@@ -933,29 +1441,25 @@ public class StructureListener implements Listener {
     }
 
     private Material getBoulderMaterial(Biome biome) {
-        String biomeName = biome.toString().toUpperCase();
-
-        if (biomeName.contains("DESERT")) return Material.SANDSTONE;
-        if (biomeName.contains("SNOWY")) return Material.PACKED_ICE;
-        if (biomeName.contains("JUNGLE")) return Material.MOSSY_COBBLESTONE;
-        if (biomeName.contains("OCEAN")) return Material.PRISMARINE;
+        if (biomeClassifier.is(biome, BiomeFamily.DESERT)) return Material.SANDSTONE;
+        if (biomeClassifier.is(biome, BiomeFamily.SNOWY)) return Material.PACKED_ICE;
+        if (biomeClassifier.is(biome, BiomeFamily.JUNGLE)) return Material.MOSSY_COBBLESTONE;
+        if (biomeClassifier.is(biome, BiomeFamily.OCEAN)) return Material.PRISMARINE;
 
         return Material.COBBLESTONE; // Default
     }
 
     private Material getVegetationForBiome(Biome biome, Random random) {
-        String biomeName = biome.toString().toUpperCase();
-
-        if (biomeName.contains("JUNGLE")) {
+        if (biomeClassifier.is(biome, BiomeFamily.JUNGLE)) {
             Material[] veg = {Material.JUNGLE_SAPLING, Material.LARGE_FERN, Material.FERN};
             return veg[random.nextInt(veg.length)];
-        } else if (biomeName.contains("TAIGA")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.TAIGA)) {
             Material[] veg = {Material.FERN, Material.LARGE_FERN, Material.SPRUCE_SAPLING};
             return veg[random.nextInt(veg.length)];
-        } else if (biomeName.contains("PLAINS")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.PLAINS)) {
             Material[] veg = {Material.SHORT_GRASS, Material.TALL_GRASS, Material.DANDELION};
             return veg[random.nextInt(veg.length)];
-        } else if (biomeName.contains("SAVANNA")) {
+        } else if (biomeClassifier.is(biome, BiomeFamily.SAVANNA)) {
             Material[] veg = {Material.SHORT_GRASS, Material.ACACIA_SAPLING};
             return veg[random.nextInt(veg.length)];
         }
@@ -971,8 +1475,7 @@ public class StructureListener implements Listener {
     }
 
     private boolean shouldHaveWaterFeature(Biome biome, String structureName) {
-        String biomeName = biome.toString().toUpperCase();
-        return !biomeName.contains("DESERT") && !biomeName.contains("NETHER") &&
+        return !biomeClassifier.isAny(biome, BiomeFamily.DESERT, BiomeFamily.NETHER) &&
                 !structureName.toLowerCase().contains("pyramid");
     }
 
@@ -1010,242 +1513,6 @@ public class StructureListener implements Listener {
         }
     }
 
-    // Keep all the original methods for structure detection
-    private boolean mightContainStructure(org.bukkit.Chunk chunk, String structureName) {
-        switch (structureName.toLowerCase()) {
-            case "village_plains":
-                return containsVillageBlocks(chunk) && isInPlainsLikeBiome(chunk);
-            case "village_desert":
-                return containsDesertVillageBlocks(chunk) && isInDesertBiome(chunk);
-            case "village_savanna":
-                return containsVillageBlocks(chunk) && isInSavannaBiome(chunk);
-            case "village_snowy":
-                return containsSnowyVillageBlocks(chunk) && isInSnowyBiome(chunk);
-            case "village_taiga":
-                return containsTaigaVillageBlocks(chunk) && isInTaigaBiome(chunk);
-            case "pillager_outpost":
-                return containsPillagerOutpostBlocks(chunk) && isInOutpostBiome(chunk);
-            case "desert_pyramid":
-                return containsDesertPyramidBlocks(chunk) && isInDesertBiome(chunk);
-            case "jungle_pyramid":
-                return containsJunglePyramidBlocks(chunk) && isInJungleBiome(chunk);
-            case "igloo":
-                return containsIglooBlocks(chunk) && isInSnowyBiome(chunk);
-            case "witch_hut":
-                return containsWitchHutBlocks(chunk) && isInSwampBiome(chunk);
-            case "ocean_monument":
-                return containsOceanMonumentBlocks(chunk) && isInOceanBiome(chunk);
-            case "woodland_mansion":
-                return containsWoodlandMansionBlocks(chunk) && isInDarkForestBiome(chunk);
-            default:
-                return false;
-        }
-    }
-
-    // All the biome detection and structure detection methods remain the same as in original
-    private boolean isInPlainsLikeBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("PLAINS") || biomeName.contains("MEADOW");
-    }
-
-    private boolean isInDesertBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("DESERT");
-    }
-
-    private boolean isInSavannaBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("SAVANNA");
-    }
-
-    private boolean isInSnowyBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("SNOWY") || biomeName.contains("FROZEN") ||
-                biomeName.contains("ICE");
-    }
-
-    private boolean isInTaigaBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("TAIGA");
-    }
-
-    private boolean isInOutpostBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("PLAINS") || biomeName.contains("DESERT") ||
-                biomeName.contains("SAVANNA") || biomeName.contains("TAIGA");
-    }
-
-    private boolean isInJungleBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("JUNGLE");
-    }
-
-    private boolean isInSwampBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("SWAMP");
-    }
-
-    private boolean isInOceanBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("OCEAN") || biomeName.contains("SEA");
-    }
-
-    private boolean isInDarkForestBiome(org.bukkit.Chunk chunk) {
-        org.bukkit.block.Biome biome = chunk.getBlock(8, 64, 8).getBiome();
-        String biomeName = biome.toString();
-        return biomeName.contains("DARK_FOREST") || biomeName.contains("ROOFED_FOREST");
-    }
-
-    // Include all the block detection methods from original StructureListener
-    private boolean containsVillageBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 3,
-                Material.COBBLESTONE,
-                Material.OAK_PLANKS,
-                Material.OAK_LOG,
-                Material.DIRT_PATH,
-                Material.HAY_BLOCK,
-                Material.BELL,
-                Material.COMPOSTER
-        );
-    }
-
-    private boolean containsDesertVillageBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 3,
-                Material.SANDSTONE,
-                Material.SMOOTH_SANDSTONE,
-                Material.SANDSTONE_STAIRS,
-                Material.DIRT_PATH,
-                Material.HAY_BLOCK,
-                Material.BELL,
-                Material.DEAD_BUSH
-        );
-    }
-
-    private boolean containsSnowyVillageBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 3,
-                Material.SPRUCE_PLANKS,
-                Material.SPRUCE_LOG,
-                Material.COBBLESTONE,
-                Material.SNOW_BLOCK,
-                Material.DIRT_PATH,
-                Material.BELL,
-                Material.CAMPFIRE
-        );
-    }
-
-    private boolean containsTaigaVillageBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 3,
-                Material.SPRUCE_PLANKS,
-                Material.SPRUCE_LOG,
-                Material.COBBLESTONE,
-                Material.DIRT_PATH,
-                Material.BELL,
-                Material.CAMPFIRE,
-                Material.SWEET_BERRY_BUSH
-        );
-    }
-
-    private boolean containsPillagerOutpostBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.DARK_OAK_PLANKS,
-                Material.DARK_OAK_LOG,
-                Material.COBBLESTONE,
-                Material.DARK_OAK_FENCE,
-                Material.WHITE_BANNER,
-                Material.IRON_BARS
-        ) && hasVerticalStructure(chunk, Material.DARK_OAK_LOG, 10);
-    }
-
-    private boolean containsDesertPyramidBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.SANDSTONE,
-                Material.CHISELED_SANDSTONE,
-                Material.SANDSTONE_STAIRS,
-                Material.SANDSTONE_SLAB,
-                Material.TNT,
-                Material.STONE_PRESSURE_PLATE
-        ) && hasLargeStructureFootprint(chunk, Material.SANDSTONE, 15);
-    }
-
-    private boolean containsJunglePyramidBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.COBBLESTONE,
-                Material.MOSSY_COBBLESTONE,
-                Material.JUNGLE_LOG,
-                Material.JUNGLE_LEAVES,
-                Material.REDSTONE_WIRE,
-                Material.STICKY_PISTON,
-                Material.TRIPWIRE_HOOK
-        );
-    }
-
-    private boolean containsIglooBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.SNOW_BLOCK,
-                Material.ICE,
-                Material.RED_CARPET,
-                Material.FURNACE,
-                Material.RED_BED
-        ) && hasSmallStructureFootprint(chunk, Material.SNOW_BLOCK, 8);
-    }
-
-    private boolean containsWitchHutBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.SPRUCE_PLANKS,
-                Material.SPRUCE_LOG,
-                Material.MUSHROOM_STEM,
-                Material.CAULDRON,
-                Material.CRAFTING_TABLE,
-                Material.FLOWER_POT
-        ) && isOverWater(chunk);
-    }
-
-    private boolean containsOceanMonumentBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 2,
-                Material.PRISMARINE,
-                Material.PRISMARINE_BRICKS,
-                Material.DARK_PRISMARINE,
-                Material.SEA_LANTERN,
-                Material.SPONGE,
-                Material.WET_SPONGE
-        ) && hasLargeStructureFootprint(chunk, Material.PRISMARINE, 30);
-    }
-
-    private boolean containsWoodlandMansionBlocks(org.bukkit.Chunk chunk) {
-        return hasBlocksInChunk(chunk, 3,
-                Material.DARK_OAK_PLANKS,
-                Material.DARK_OAK_LOG,
-                Material.COBBLESTONE,
-                Material.WHITE_WOOL,
-                Material.BLUE_WOOL,
-                Material.BOOKSHELF,
-                Material.REDSTONE_TORCH
-        ) && hasMassiveStructure(chunk, Material.DARK_OAK_PLANKS, 50);
-    }
-
-    // Helper methods
-    private boolean hasBlocksInChunk(org.bukkit.Chunk chunk, int minRequired, Material... materials) {
-        int foundCount = 0;
-        for (Material material : materials) {
-            if (hasBlockTypeInChunk(chunk, material)) {
-                foundCount++;
-                if (foundCount >= minRequired) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     // TerrainAnalysis class untuk menyimpan data analisis terrain
     private static class TerrainAnalysis {
         public Biome biome;
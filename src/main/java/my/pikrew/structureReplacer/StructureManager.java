@@ -12,18 +12,30 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StructureManager {
 
     private JavaPlugin plugin;
     private File structuresDir;
+    // Nama structure di folder, supaya deteksi tidak memanggil File.exists() per chunk
+    private volatile Set<String> structureNames = Collections.emptySet();
+    // Template yang sudah di-parse, dikosongkan setiap kali isi folder berubah
+    private final Map<String, StructureTemplate> templates = new ConcurrentHashMap<>();
+    // Kunci baca/konversi per nama structure
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    // Pack bersama (memory-mapped); file di folder structures menimpa isinya
+    private volatile StructurePack pack;
     private TerrainAdapter terrainAdapter;
     private ConfigManager configManager;
+    private BiomeClassifier biomeClassifier;
     private Random random; // Tambahkan field random
 
     // Material mapping untuk adaptasi biome
-    private static final Map<String, Map<Material, Material>> BIOME_MATERIAL_MAPPING = new HashMap<>();
+    private static final Map<BiomeFamily, Map<Material, Material>> BIOME_MATERIAL_MAPPING = new EnumMap<>(BiomeFamily.class);
 
     static {
         // Desert adaptations
@@ -35,7 +47,7 @@ public class StructureManager {
         desertMapping.put(Material.DIRT_PATH, Material.SAND);
         desertMapping.put(Material.GRASS_BLOCK, Material.SAND);
         desertMapping.put(Material.SHORT_GRASS, Material.DEAD_BUSH);
-        BIOME_MATERIAL_MAPPING.put("DESERT", desertMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.DESERT, desertMapping);
 
         // Snowy adaptations
         Map<Material, Material> snowyMapping = new HashMap<>();
@@ -45,7 +57,7 @@ public class StructureManager {
         snowyMapping.put(Material.GRASS_BLOCK, Material.SNOW_BLOCK);
         snowyMapping.put(Material.SHORT_GRASS, Material.SNOW);
         snowyMapping.put(Material.STONE, Material.PACKED_ICE);
-        BIOME_MATERIAL_MAPPING.put("SNOWY", snowyMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.SNOWY, snowyMapping);
 
         // Taiga adaptations
         Map<Material, Material> taigaMapping = new HashMap<>();
@@ -55,7 +67,7 @@ public class StructureManager {
         taigaMapping.put(Material.OAK_SLAB, Material.SPRUCE_SLAB);
         taigaMapping.put(Material.OAK_FENCE, Material.SPRUCE_FENCE);
         taigaMapping.put(Material.SHORT_GRASS, Material.FERN);
-        BIOME_MATERIAL_MAPPING.put("TAIGA", taigaMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.TAIGA, taigaMapping);
 
         // Jungle adaptations
         Map<Material, Material> jungleMapping = new HashMap<>();
@@ -64,7 +76,7 @@ public class StructureManager {
         jungleMapping.put(Material.COBBLESTONE, Material.MOSSY_COBBLESTONE);
         jungleMapping.put(Material.STONE_BRICKS, Material.MOSSY_STONE_BRICKS);
         jungleMapping.put(Material.SHORT_GRASS, Material.JUNGLE_SAPLING);
-        BIOME_MATERIAL_MAPPING.put("JUNGLE", jungleMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.JUNGLE, jungleMapping);
 
         // Savanna adaptations
         Map<Material, Material> savannaMapping = new HashMap<>();
@@ -74,7 +86,7 @@ public class StructureManager {
         savannaMapping.put(Material.OAK_SLAB, Material.ACACIA_SLAB);
         savannaMapping.put(Material.OAK_FENCE, Material.ACACIA_FENCE);
         savannaMapping.put(Material.GRASS_BLOCK, Material.COARSE_DIRT);
-        BIOME_MATERIAL_MAPPING.put("SAVANNA", savannaMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.SAVANNA, savannaMapping);
 
         // Swamp adaptations
         Map<Material, Material> swampMapping = new HashMap<>();
@@ -83,7 +95,7 @@ public class StructureManager {
         swampMapping.put(Material.COBBLESTONE, Material.MOSSY_COBBLESTONE);
         swampMapping.put(Material.DIRT_PATH, Material.MUD);
         swampMapping.put(Material.SHORT_GRASS, Material.BROWN_MUSHROOM);
-        BIOME_MATERIAL_MAPPING.put("SWAMP", swampMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.SWAMP, swampMapping);
 
         // Ocean adaptations
         Map<Material, Material> oceanMapping = new HashMap<>();
@@ -92,7 +104,7 @@ public class StructureManager {
         oceanMapping.put(Material.OAK_PLANKS, Material.DARK_PRISMARINE);
         oceanMapping.put(Material.TORCH, Material.SEA_LANTERN);
         oceanMapping.put(Material.DIRT_PATH, Material.PRISMARINE);
-        BIOME_MATERIAL_MAPPING.put("OCEAN", oceanMapping);
+        BIOME_MATERIAL_MAPPING.put(BiomeFamily.OCEAN, oceanMapping);
     }
 
     public StructureManager(JavaPlugin plugin) {
@@ -103,6 +115,62 @@ public class StructureManager {
         if (!structuresDir.exists()) {
             structuresDir.mkdirs();
         }
+        refreshStructureIndex();
+    }
+
+    /**
+     * Baca ulang daftar file structure dan buka ulang pack. Dipanggil saat reload dan setelah save.
+     */
+    public void refreshStructureIndex() {
+        this.pack = openPack();
+        this.structureNames = new HashSet<>(getAvailableStructures().keySet());
+        templates.clear();
+    }
+
+    private StructurePack openPack() {
+        File packFile = StructurePack.resolve(getPackFile());
+        if (!packFile.exists()) {
+            return null;
+        }
+
+        try {
+            StructurePack opened = StructurePack.open(packFile);
+            // Generasi lama; yang masih di-map di proses lain atau di Windows tetap dibiarkan
+            StructurePack.deleteStale(getPackFile(), packFile);
+            return opened;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not open structure pack " + packFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lokasi pack dari config; path relatif dihitung dari folder plugin. Build menulis
+     * generasi bernomor di sebelahnya, lihat StructurePack.resolve.
+     */
+    public File getPackFile() {
+        String path = configManager != null ? configManager.getStructurePackPath() : "structures.srp";
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(plugin.getDataFolder(), path);
+    }
+
+    /**
+     * Tulis semua structure yang tersedia (pack lama plus file di folder) ke pack baru.
+     * Mengembalikan jumlah structure di pack.
+     */
+    public synchronized int buildPack() throws IOException {
+        Map<String, byte[]> blobs = new TreeMap<>();
+        for (String name : getAvailableStructures().keySet()) {
+            blobs.put(name, StructureFile.encode(getTemplate(name)));
+        }
+
+        StructurePack.write(getPackFile(), blobs);
+        refreshStructureIndex();
+        return blobs.size();
+    }
+
+    public StructurePack getPack() {
+        return pack;
     }
 
     public void setTerrainAdapter(TerrainAdapter terrainAdapter) {
@@ -111,6 +179,12 @@ public class StructureManager {
 
     public void setConfigManager(ConfigManager configManager) {
         this.configManager = configManager;
+        // Lokasi pack baru diketahui setelah config dimuat
+        refreshStructureIndex();
+    }
+
+    public void setBiomeClassifier(BiomeClassifier biomeClassifier) {
+        this.biomeClassifier = biomeClassifier;
     }
 
     public void saveStructure(String name, Selection selection) throws IOException {
@@ -118,19 +192,8 @@ public class StructureManager {
             throw new IllegalArgumentException("Selection is not complete");
         }
 
-        File structureFile = new File(structuresDir, name + ".yml");
-        YamlConfiguration config = new YamlConfiguration();
-
-        // Save metadata
-        config.set("name", name);
-        config.set("width", selection.getWidth());
-        config.set("height", selection.getHeight());
-        config.set("length", selection.getLength());
-        config.set("created", System.currentTimeMillis());
-
-        // Save blocks dengan metadata tambahan untuk adaptasi
-        List<Map<String, Object>> blocks = new ArrayList<>();
         World world = selection.getWorld();
+        List<Block> blocks = new ArrayList<>();
 
         for (int x = selection.getMinX(); x <= selection.getMaxX(); x++) {
             for (int y = selection.getMinY(); y <= selection.getMaxY(); y++) {
@@ -140,27 +203,35 @@ public class StructureManager {
                     if (block.getType() == Material.AIR) {
                         continue; // Skip air blocks to save space
                     }
-
-                    Map<String, Object> blockData = new HashMap<>();
-                    blockData.put("x", x - selection.getMinX());
-                    blockData.put("y", y - selection.getMinY());
-                    blockData.put("z", z - selection.getMinZ());
-                    blockData.put("material", block.getType().name());
-                    blockData.put("data", block.getBlockData().getAsString());
-
-                    // Tambah kategori block untuk adaptasi yang lebih baik
-                    blockData.put("category", categorizeBlock(block.getType()));
-
-                    // Tambah informasi struktural
-                    blockData.put("structural_role", getStructuralRole(block, selection, x, y, z));
-
-                    blocks.add(blockData);
+                    blocks.add(block);
                 }
             }
         }
 
-        config.set("blocks", blocks);
-        config.save(structureFile);
+        StructureTemplate template = new StructureTemplate(name, selection.getWidth(), selection.getHeight(),
+                selection.getLength(), System.currentTimeMillis(), blocks.size());
+
+        // Save blocks dengan metadata tambahan untuk adaptasi
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            template.x[i] = block.getX() - selection.getMinX();
+            template.y[i] = block.getY() - selection.getMinY();
+            template.z[i] = block.getZ() - selection.getMinZ();
+            template.materials[i] = block.getType();
+            template.materialNames[i] = block.getType().name();
+            template.blockData[i] = block.getBlockData().getAsString();
+
+            // Tambah kategori block untuk adaptasi yang lebih baik
+            template.categories[i] = categorizeBlock(block.getType());
+
+            // Tambah informasi struktural
+            template.roles[i] = getStructuralRole(block, selection, block.getX(), block.getY(), block.getZ());
+        }
+
+        StructureFile.write(new File(structuresDir, name + StructureFile.EXTENSION), template);
+        // File YAML lama dengan nama yang sama tidak boleh tertinggal
+        Files.deleteIfExists(new File(structuresDir, name + ".yml").toPath());
+        refreshStructureIndex();
     }
 
     public void pasteStructure(String name, Location location) throws IOException {
@@ -168,84 +239,233 @@ public class StructureManager {
     }
 
     public void pasteStructureWithAdaptation(String name, Location location, boolean adaptToTerrain) throws IOException {
-        File structureFile = new File(structuresDir, name + ".yml");
+        StructurePaste paste = beginPaste(name, location, adaptToTerrain);
+        while (!paste.step(Integer.MAX_VALUE)) {
+            // Jalankan semua fase sekaligus
+        }
+    }
 
-        if (!structureFile.exists()) {
-            throw new IOException("Structure file not found: " + name);
+    /**
+     * Siapkan paste yang bisa dicicil lewat StructurePaste.step di beberapa tick
+     */
+    public StructurePaste beginPaste(String name, Location location, boolean adaptToTerrain) throws IOException {
+        return beginPaste(getTemplate(name), location, adaptToTerrain);
+    }
+
+    public StructurePaste beginPaste(StructureTemplate template, Location location, boolean adaptToTerrain) {
+        return new StructurePaste(template, location, adaptToTerrain, null, null);
+    }
+
+    /**
+     * Paste dengan adaptasi yang sudah disiapkan untuk preparedBiome. Adaptasi itu hanya
+     * dipakai jika biome di lokasi paste memakai mapping material yang sama.
+     */
+    public StructurePaste beginPaste(StructureTemplate template, Location location, boolean adaptToTerrain,
+                                     Biome preparedBiome, StructureTemplate.Adaptation prepared) {
+        return new StructurePaste(template, location, adaptToTerrain, preparedBiome, prepared);
+    }
+
+    /**
+     * Baca template dari file .srs di folder structures, atau dari pack jika tidak ada.
+     * File .yml lama dikonversi ke .srs saat pertama kali dibaca, lalu disimpan sebagai .yml.bak.
+     * Dikunci per nama: konversi satu structure tidak menahan pembacaan structure lain.
+     */
+    public StructureTemplate loadTemplate(String name) throws IOException {
+        synchronized (loadLocks.computeIfAbsent(name, key -> new Object())) {
+            return readTemplate(name);
         }
+    }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(structureFile);
-        List<Map<?, ?>> blocks = config.getMapList("blocks");
+    private StructureTemplate readTemplate(String name) throws IOException {
+        File binaryFile = new File(structuresDir, name + StructureFile.EXTENSION);
+        if (binaryFile.exists()) {
+            return StructureFile.read(name, binaryFile);
+        }
 
-        World world = location.getWorld();
-        Biome biome = world.getBiome(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        File yamlFile = new File(structuresDir, name + ".yml");
+        if (!yamlFile.exists()) {
+            StructurePack currentPack = pack;
+            if (currentPack != null && currentPack.contains(name)) {
+                return currentPack.read(name);
+            }
+            throw new IOException("Structure file not found: " + name);
+        }
 
-        int baseX = location.getBlockX();
-        int baseY = location.getBlockY();
-        int baseZ = location.getBlockZ();
+        StructureTemplate template = StructureTemplate.fromYaml(name, YamlConfiguration.loadConfiguration(yamlFile));
+        try {
+            StructureFile.write(binaryFile, template);
+            long yamlSize = yamlFile.length();
+            Files.move(yamlFile.toPath(), new File(structuresDir, name + ".yml.bak").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().info("Converted structure " + name + " to " + StructureFile.EXTENSION + " (" +
+                    yamlSize / 1024 + " KB -> " + binaryFile.length() / 1024 + " KB)");
+        } catch (IOException e) {
+            // Tetap pakai YAML; konversi dicoba lagi saat dibaca berikutnya
+            Files.deleteIfExists(binaryFile.toPath());
+            plugin.getLogger().warning("Could not convert structure " + name + ": " + e.getMessage());
+        }
+        return template;
+    }
 
-        // Fase 1: Adaptasi terrain jika diperlukan
-        if (adaptToTerrain && terrainAdapter != null) {
-            terrainAdapter.adaptStructureToTerrain(location, name);
+    /**
+     * Template dari cache, file hanya dibaca saat pertama kali dipakai
+     */
+    public StructureTemplate getTemplate(String name) throws IOException {
+        StructureTemplate template = templates.get(name);
+        if (template == null) {
+            template = loadTemplate(name);
+            templates.put(name, template);
         }
+        return template;
+    }
 
-        // Fase 2: Tempatkan struktur dengan adaptasi material
-        Map<Material, Material> materialMapping = getBiomeMaterialMapping(biome);
+    /**
+     * Template yang sudah ada di cache, atau null tanpa membaca file
+     */
+    public StructureTemplate getCachedTemplate(String name) {
+        return templates.get(name);
+    }
 
-        for (Map<?, ?> blockInfo : blocks) {
-            int x = baseX + (Integer) blockInfo.get("x");
-            int y = baseY + (Integer) blockInfo.get("y");
-            int z = baseZ + (Integer) blockInfo.get("z");
+    /**
+     * Siapkan adaptasi template untuk biome ini, supaya paste nanti tinggal menulis block.
+     * Aman dipanggil dari luar main thread.
+     */
+    public StructureTemplate.Adaptation prepareAdaptation(StructureTemplate template, Biome biome) {
+        return adaptTemplate(template, biome);
+    }
 
-            String materialName = (String) blockInfo.get("material");
-            String blockDataString = (String) blockInfo.get("data");
-            String category = (String) blockInfo.get("category");
-            String structuralRole = (String) blockInfo.get("structural_role");
+    private StructureTemplate.Adaptation adaptTemplate(StructureTemplate template, Biome biome) {
+        return template.getAdaptation(getBiomeMaterialMapping(biome), mapping -> {
+            StructureTemplate.Adaptation adaptation = new StructureTemplate.Adaptation(template.getBlockCount());
 
-            try {
-                Material originalMaterial = Material.valueOf(materialName);
-                Material adaptedMaterial = adaptMaterialToBiome(originalMaterial, materialMapping, category);
+            for (int i = 0; i < template.getBlockCount(); i++) {
+                Material originalMaterial = template.materials[i];
+                if (originalMaterial == null) {
+                    continue;
+                }
 
-                Block block = world.getBlockAt(x, y, z);
-                block.setType(adaptedMaterial);
+                Material adaptedMaterial = adaptMaterialToBiome(originalMaterial, mapping, template.categories[i]);
+                adaptation.materials[i] = adaptedMaterial;
 
                 // Sesuaikan block data jika perlu
+                String blockDataString = template.blockData[i];
                 if (blockDataString != null && !blockDataString.isEmpty()) {
                     try {
                         // Adaptasi block data untuk material yang berubah
                         String adaptedBlockData = adaptBlockData(blockDataString, originalMaterial, adaptedMaterial);
-                        BlockData blockData = plugin.getServer().createBlockData(adaptedBlockData);
-                        block.setBlockData(blockData);
+                        adaptation.blockData[i] = plugin.getServer().createBlockData(adaptedBlockData);
                     } catch (IllegalArgumentException e) {
                         if (configManager != null && configManager.isDebugEnabled()) {
                             plugin.getLogger().warning("Invalid block data for " + adaptedMaterial + ": " + blockDataString);
                         }
                     }
                 }
+            }
+            return adaptation;
+        });
+    }
 
-            } catch (IllegalArgumentException e) {
+    /**
+     * Paste satu structure dalam beberapa langkah: adaptasi terrain, block per batch, lalu detail natural
+     */
+    public class StructurePaste {
+        private final StructureTemplate template;
+        private final Location location;
+        private final boolean adaptToTerrain;
+        private final World world;
+        private final Biome biome;
+        private final StructureTemplate.Adaptation adaptation;
+        private final boolean usesPrepared;
+        private boolean terrainDone;
+        private int nextBlock;
+
+        private StructurePaste(StructureTemplate template, Location location, boolean adaptToTerrain,
+                               Biome preparedBiome, StructureTemplate.Adaptation prepared) {
+            this.template = template;
+            this.location = location;
+            this.adaptToTerrain = adaptToTerrain;
+            this.world = location.getWorld();
+            this.biome = world.getBiome(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+            this.usesPrepared = prepared != null &&
+                    getBiomeMaterialMapping(preparedBiome) == getBiomeMaterialMapping(biome);
+            this.adaptation = usesPrepared ? prepared : adaptTemplate(template, biome);
+        }
+
+        /**
+         * Apakah paste ini memakai adaptasi yang sudah disiapkan sebelumnya
+         */
+        public boolean usesPreparedAdaptation() {
+            return usesPrepared;
+        }
+
+        /**
+         * Jalankan langkah berikutnya, maksimal maxBlocks block untuk fase penempatan.
+         * Mengembalikan true jika paste sudah selesai.
+         */
+        public boolean step(int maxBlocks) {
+            // Fase 1: Adaptasi terrain jika diperlukan
+            if (!terrainDone) {
+                terrainDone = true;
+                if (adaptToTerrain && terrainAdapter != null) {
+                    terrainAdapter.adaptStructureToTerrain(location, template.name);
+                }
+                return false;
+            }
+
+            // Fase 2: Tempatkan struktur dengan adaptasi material
+            if (nextBlock < template.getBlockCount()) {
+                int end = (int) Math.min((long) nextBlock + maxBlocks, template.getBlockCount());
+                for (; nextBlock < end; nextBlock++) {
+                    placeBlock(nextBlock);
+                }
+                return false;
+            }
+
+            // Fase 3: Post-processing untuk details natural
+            if (adaptToTerrain) {
+                addNaturalDetails(location, template, biome);
+            }
+            return true;
+        }
+
+        private void placeBlock(int index) {
+            Material adaptedMaterial = adaptation.materials[index];
+            if (adaptedMaterial == null) {
                 if (configManager != null && configManager.isDebugEnabled()) {
-                    plugin.getLogger().warning("Unknown material: " + materialName);
+                    plugin.getLogger().warning("Unknown material: " + template.materialNames[index]);
                 }
+                return;
+            }
+
+            Block block = world.getBlockAt(location.getBlockX() + template.x[index],
+                    location.getBlockY() + template.y[index], location.getBlockZ() + template.z[index]);
+            block.setType(adaptedMaterial);
+
+            // BlockData sudah di-parse saat adaptasi; null jika tidak ada atau tidak valid
+            BlockData blockData = adaptation.blockData[index];
+            if (blockData != null) {
+                block.setBlockData(blockData);
             }
         }
 
-        // Fase 3: Post-processing untuk details natural
-        if (adaptToTerrain) {
-            addNaturalDetails(location, name, biome, config);
+        public int getPlacedBlocks() {
+            return nextBlock;
+        }
+
+        public int getTotalBlocks() {
+            return template.getBlockCount();
         }
     }
 
     /**
      * Menambahkan detail natural setelah struktur ditempatkan
      */
-    private void addNaturalDetails(Location center, String structureName, Biome biome, YamlConfiguration config) {
-        World world = center.getWorld();
+    private void addNaturalDetails(Location center, StructureTemplate template, Biome biome) {
         Random random = new Random();
 
-        int width = config.getInt("width", 10);
-        int height = config.getInt("height", 10);
-        int length = config.getInt("length", 10);
+        int width = template.width;
+        int height = template.height;
+        int length = template.length;
 
         // Tambah weathering effects
         addWeatheringEffects(center, width, height, length, biome, random);
@@ -259,7 +479,7 @@ public class StructureManager {
 
     private void addWeatheringEffects(Location center, int width, int height, int length, Biome biome, Random random) {
         World world = center.getWorld();
-        String biomeName = biome.toString().toUpperCase();
+        int families = biomeClassifier.getFamilies(biome);
 
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
@@ -267,7 +487,7 @@ public class StructureManager {
                     if (random.nextDouble() < 0.05) { // 5% chance
                         Location loc = center.clone().add(x, y, z);
                         Block block = world.getBlockAt(loc);
-                        Material weathered = getWeatheredVersion(block.getType(), biomeName);
+                        Material weathered = getWeatheredVersion(block.getType(), families);
 
                         if (weathered != null) {
                             block.setType(weathered);
@@ -280,7 +500,7 @@ public class StructureManager {
 
     private void addVegetationOvergrowth(Location center, int width, int height, int length, Biome biome, Random random) {
         World world = center.getWorld();
-        String biomeName = biome.toString().toUpperCase();
+        int families = biomeClassifier.getFamilies(biome);
 
         for (int x = 0; x < width; x++) {
             for (int z = 0; z < length; z++) {
@@ -289,7 +509,7 @@ public class StructureManager {
                     Block block = world.getBlockAt(loc);
 
                     if (block.getType() == Material.AIR) {
-                        Material vegetation = getVegetationForBiome(biomeName, random);
+                        Material vegetation = getVegetationForBiome(families, random);
                         if (vegetation != null) {
                             block.setType(vegetation);
                         }
@@ -319,8 +539,8 @@ public class StructureManager {
         }
     }
 
-    private Material getWeatheredVersion(Material material, String biomeName) {
-        if (biomeName.contains("DESERT") || biomeName.contains("BADLANDS")) {
+    private Material getWeatheredVersion(Material material, int families) {
+        if (hasFamily(families, BiomeFamily.DESERT) || hasFamily(families, BiomeFamily.BADLANDS)) {
             // Desert weathering
             switch (material) {
                 case COBBLESTONE:
@@ -332,7 +552,7 @@ public class StructureManager {
                 default:
                     break;
             }
-        } else if (biomeName.contains("JUNGLE") || biomeName.contains("SWAMP")) {
+        } else if (hasFamily(families, BiomeFamily.JUNGLE) || hasFamily(families, BiomeFamily.SWAMP)) {
             // Tropical/humid weathering
             switch (material) {
                 case COBBLESTONE:
@@ -344,7 +564,7 @@ public class StructureManager {
                 default:
                     break;
             }
-        } else if (biomeName.contains("SNOWY") || biomeName.contains("FROZEN")) {
+        } else if (hasFamily(families, BiomeFamily.SNOWY) || hasFamily(families, BiomeFamily.FROZEN)) {
             // Cold weathering
             switch (material) {
                 case STONE_BRICKS:
@@ -359,17 +579,17 @@ public class StructureManager {
         return null; // No weathering
     }
 
-    private Material getVegetationForBiome(String biomeName, Random random) {
-        if (biomeName.contains("JUNGLE")) {
+    private Material getVegetationForBiome(int families, Random random) {
+        if (hasFamily(families, BiomeFamily.JUNGLE)) {
             Material[] jungleVeg = {Material.VINE, Material.JUNGLE_SAPLING, Material.COCOA};
             return jungleVeg[random.nextInt(jungleVeg.length)];
-        } else if (biomeName.contains("SWAMP")) {
+        } else if (hasFamily(families, BiomeFamily.SWAMP)) {
             Material[] swampVeg = {Material.BROWN_MUSHROOM, Material.RED_MUSHROOM, Material.LILY_PAD};
             return swampVeg[random.nextInt(swampVeg.length)];
-        } else if (biomeName.contains("PLAINS") || biomeName.contains("MEADOW")) {
+        } else if (hasFamily(families, BiomeFamily.PLAINS) || hasFamily(families, BiomeFamily.MEADOW)) {
             Material[] plainsVeg = {Material.SHORT_GRASS, Material.DANDELION, Material.POPPY};
             return plainsVeg[random.nextInt(plainsVeg.length)];
-        } else if (biomeName.contains("TAIGA")) {
+        } else if (hasFamily(families, BiomeFamily.TAIGA)) {
             Material[] taigaVeg = {Material.FERN, Material.LARGE_FERN, Material.SWEET_BERRY_BUSH};
             return taigaVeg[random.nextInt(taigaVeg.length)];
         }
@@ -377,6 +597,10 @@ public class StructureManager {
         return null;
     }
 
+    private static boolean hasFamily(int families, BiomeFamily family) {
+        return (families & family.mask()) != 0;
+    }
+
     private Material getVariationMaterial(Material original, Random random) {
         switch (original) {
             case COBBLESTONE:
@@ -441,15 +665,7 @@ public class StructureManager {
     }
 
     private Map<Material, Material> getBiomeMaterialMapping(Biome biome) {
-        String biomeName = biome.toString().toUpperCase();
-
-        for (String key : BIOME_MATERIAL_MAPPING.keySet()) {
-            if (biomeName.contains(key)) {
-                return BIOME_MATERIAL_MAPPING.get(key);
-            }
-        }
-
-        return new HashMap<>(); // No mapping
+        return biomeClassifier.select(biome, BIOME_MATERIAL_MAPPING, Collections.emptyMap()); // No mapping
     }
 
     private Material adaptMaterialToBiome(Material original, Map<Material, Material> mapping, String category) {
@@ -476,45 +692,56 @@ public class StructureManager {
     }
 
     public boolean structureExists(String name) {
-        File structureFile = new File(structuresDir, name + ".yml");
-        return structureFile.exists();
+        return structureNames.contains(name);
     }
 
     public Map<String, File> getAvailableStructures() {
         Map<String, File> structures = new HashMap<>();
 
+        StructurePack currentPack = pack;
+        if (currentPack != null) {
+            for (String name : currentPack.getNames()) {
+                structures.put(name, currentPack.getFile());
+            }
+        }
+
         if (!structuresDir.exists()) {
             return structures;
         }
 
-        File[] files = structuresDir.listFiles((dir, name) -> name.endsWith(".yml"));
+        File[] files = structuresDir.listFiles((dir, name) -> name.endsWith(StructureFile.EXTENSION) || name.endsWith(".yml"));
 
         if (files != null) {
+            Map<String, File> looseFiles = new HashMap<>();
             for (File file : files) {
-                String name = file.getName().substring(0, file.getName().length() - 4);
-                structures.put(name, file);
+                String fileName = file.getName();
+                String name = fileName.substring(0, fileName.lastIndexOf('.'));
+                // .srs menang jika masih ada .yml dengan nama yang sama
+                if (fileName.endsWith(StructureFile.EXTENSION) || !looseFiles.containsKey(name)) {
+                    looseFiles.put(name, file);
+                }
             }
+            // File di folder menimpa isi pack
+            structures.putAll(looseFiles);
         }
 
         return structures;
     }
 
     public StructureInfo getStructureInfo(String name) throws IOException {
-        File structureFile = new File(structuresDir, name + ".yml");
-
-        if (!structureFile.exists()) {
+        if (!getAvailableStructures().containsKey(name)) {
             return null;
         }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(structureFile);
+        StructureTemplate template = getTemplate(name);
 
         StructureInfo info = new StructureInfo();
-        info.name = config.getString("name", name);
-        info.width = config.getInt("width", 0);
-        info.height = config.getInt("height", 0);
-        info.length = config.getInt("length", 0);
-        info.created = config.getLong("created", 0);
-        info.blockCount = config.getMapList("blocks").size();
+        info.name = template.name;
+        info.width = template.width;
+        info.height = template.height;
+        info.length = template.length;
+        info.created = template.created;
+        info.blockCount = template.getBlockCount();
 
         return info;
     }
@@ -0,0 +1,235 @@
+package my.pikrew.structureReplacer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Satu file berisi banyak structure: index nama ke offset, lalu blob .srs per
+ * structure. File dibuka dengan FileChannel.map sehingga blob dibaca dari page cache
+ * OS tanpa salinan file di heap, dan beberapa server di host yang sama berbagi page
+ * yang sama. Template tetap di-decode ke heap saat pertama dipakai (lalu di-cache
+ * oleh StructureManager); yang dibagi hanya bytes .srs-nya.
+ *
+ * Pack tidak pernah ditimpa: setiap build menulis generasi baru structures.<n>.srp
+ * di sebelah path yang dikonfigurasi, dan open memilih generasi terbaru. File yang
+ * masih di-map (oleh proses ini atau server lain) tidak pernah di-rename atau ditimpa,
+ * yang di Windows akan gagal; generasi lama dihapus jika sudah tidak dipakai.
+ */
+public class StructurePack {
+
+    private static final int MAGIC = 0x53525031; // "SRP1"
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    // Nama structure -> {offset, panjang} dari awal bagian data
+    private final Map<String, int[]> entries;
+    private final int dataStart;
+
+    private StructurePack(File file, MappedByteBuffer buffer, Map<String, int[]> entries, int dataStart) {
+        this.file = file;
+        this.buffer = buffer;
+        this.entries = entries;
+        this.dataStart = dataStart;
+    }
+
+    /**
+     * Map file pack dan baca index-nya. Blob structure baru dibaca saat dipakai.
+     */
+    public static StructurePack open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // Mapping tetap valid setelah channel ditutup
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a structure pack: " + file.getName());
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported structure pack version " + version + ": " + file.getName());
+            }
+
+            int count = StructureFile.readVarInt(buffer);
+            // Setiap entry index minimal sembilan byte (nama kosong, offset, panjang)
+            if (count < 0 || (long) count * 9 > buffer.remaining()) {
+                throw new IOException("Corrupt structure pack: " + file.getName());
+            }
+            Map<String, int[]> entries = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = StructureFile.readString(buffer);
+                entries.put(name, new int[]{buffer.getInt(), buffer.getInt()});
+            }
+
+            int dataStart = buffer.position();
+            for (int[] entry : entries.values()) {
+                if (entry[0] < 0 || entry[1] < 0 || (long) dataStart + entry[0] + entry[1] > buffer.capacity()) {
+                    throw new IOException("Corrupt structure pack: " + file.getName());
+                }
+            }
+            return new StructurePack(file, buffer, entries, dataStart);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated structure pack: " + file.getName(), e);
+        }
+    }
+
+    /**
+     * File pack terbaru untuk path ini: generasi dengan nomor terbesar, atau path itu
+     * sendiri jika belum pernah ada generasi yang di-build
+     */
+    public static File resolve(File file) {
+        File latest = file;
+        long latestGeneration = -1;
+        for (File candidate : listGenerations(file)) {
+            long generation = generationOf(file, candidate);
+            if (generation > latestGeneration) {
+                latest = candidate;
+                latestGeneration = generation;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Hapus generasi selain current. File yang masih di-map (di Windows tidak bisa
+     * dihapus) dilewati dan dicoba lagi saat berikutnya.
+     */
+    public static void deleteStale(File file, File current) {
+        for (File candidate : listGenerations(file)) {
+            if (!candidate.equals(current)) {
+                try {
+                    Files.deleteIfExists(candidate.toPath());
+                } catch (IOException ignored) {
+                    // Masih dipakai; dihapus pada build atau reload berikutnya
+                }
+            }
+        }
+    }
+
+    private static List<File> listGenerations(File file) {
+        List<File> generations = new ArrayList<>();
+        File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+        if (files != null) {
+            for (File candidate : files) {
+                if (generationOf(file, candidate) >= 0) {
+                    generations.add(candidate);
+                }
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Nomor generasi dari nama stem.<n>.ext, atau -1 jika bukan generasi pack ini
+     */
+    private static long generationOf(File file, File candidate) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String stem = dot < 0 ? name : name.substring(0, dot);
+        String extension = dot < 0 ? "" : name.substring(dot);
+
+        String candidateName = candidate.getName();
+        if (!candidateName.startsWith(stem + ".") || !candidateName.endsWith(extension)
+                || candidateName.length() <= stem.length() + 1 + extension.length()) {
+            return -1;
+        }
+        String number = candidateName.substring(stem.length() + 1, candidateName.length() - extension.length());
+        for (int i = 0; i < number.length(); i++) {
+            if (!Character.isDigit(number.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Tulis generasi pack baru dari blob .srs per nama, lewat file sementara lalu rename.
+     * Mengembalikan file yang ditulis.
+     */
+    public static File write(File file, Map<String, byte[]> blobs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        StructureFile.writeVarInt(out, blobs.size());
+
+        int offset = 0;
+        for (Map.Entry<String, byte[]> blob : blobs.entrySet()) {
+            StructureFile.writeString(out, blob.getKey());
+            out.writeInt(offset);
+            out.writeInt(blob.getValue().length);
+            offset = Math.addExact(offset, blob.getValue().length);
+        }
+        for (byte[] blob : blobs.values()) {
+            out.write(blob);
+        }
+        out.flush();
+
+        // Nama baru yang belum pernah dipakai, jadi tidak ada file ter-map yang ditimpa
+        File latest = resolve(file);
+        long generation = Math.max(System.currentTimeMillis(), generationOf(file, latest) + 1);
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String generationName = dot < 0 ? name + "." + generation
+                : name.substring(0, dot) + "." + generation + name.substring(dot);
+        File target = new File(file.getAbsoluteFile().getParentFile(), generationName);
+
+        File temp = new File(target.getPath() + ".tmp");
+        Files.write(temp.toPath(), bytes.toByteArray());
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Baca template dari mapping. Aman dipanggil dari beberapa thread sekaligus.
+     */
+    public StructureTemplate read(String name) throws IOException {
+        int[] entry = entries.get(name);
+        if (entry == null) {
+            throw new IOException("Structure not in pack: " + name);
+        }
+
+        // Duplicate supaya posisi dan limit tidak berbagi antar thread
+        ByteBuffer blob = buffer.duplicate();
+        blob.position(dataStart + entry[0]);
+        blob.limit(dataStart + entry[0] + entry[1]);
+        return StructureFile.read(name, blob.slice());
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,190 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefilter berdasarkan grid penempatan structure vanilla (random spread).
+ * Setiap structure set menaruh maksimal satu start per region spacing x spacing
+ * chunk, di posisi yang bisa dihitung dari seed world. Chunk yang jauh dari semua
+ * kandidat start bisa dilewati tanpa membaca block sama sekali.
+ *
+ * Hanya berlaku untuk overworld dengan generator vanilla; datapack yang mengubah
+ * structure set harus mematikan detection.placement-prefilter. Salt per world dibaca
+ * dari seed-* di spigot.yml; jika spigot.yml tidak bisa dibaca, prefilter dimatikan.
+ */
+public class StructurePlacementGrid {
+
+    private static final Map<String, Placement> PLACEMENTS = new HashMap<>();
+
+    static {
+        // Parameter structure set vanilla 1.21: spacing, separation, salt, triangular, jangkauan (chunk),
+        // plus key seed di spigot.yml yang bisa mengganti salt per world
+        Placement villages = new Placement(34, 8, 10387312, false, 5, "seed-village");
+        PLACEMENTS.put("village_plains", villages);
+        PLACEMENTS.put("village_desert", villages);
+        PLACEMENTS.put("village_savanna", villages);
+        PLACEMENTS.put("village_snowy", villages);
+        PLACEMENTS.put("village_taiga", villages);
+        PLACEMENTS.put("pillager_outpost", new Placement(32, 8, 165745296, false, 2, "seed-outpost"));
+        PLACEMENTS.put("desert_pyramid", new Placement(32, 8, 14357617, false, 1, "seed-desert"));
+        PLACEMENTS.put("jungle_pyramid", new Placement(32, 8, 14357619, false, 1, "seed-jungle"));
+        PLACEMENTS.put("igloo", new Placement(32, 8, 14357618, false, 1, "seed-igloo"));
+        PLACEMENTS.put("witch_hut", new Placement(32, 8, 14357620, false, 1, "seed-swamp"));
+        PLACEMENTS.put("ocean_monument", new Placement(32, 5, 10387313, true, 2, "seed-monument"));
+        PLACEMENTS.put("woodland_mansion", new Placement(80, 20, 10387319, true, 4, "seed-mansion"));
+        PLACEMENTS.put("ruined_portal", new Placement(40, 15, 34222645, false, 1, "seed-portal"));
+        PLACEMENTS.put("shipwreck", new Placement(24, 4, 165745295, false, 1, "seed-shipwreck"));
+    }
+
+    private final ConfigManager configManager;
+    // Salt per world dari spigot.yml (seed key -> salt); map kosong berarti tidak bisa dibaca
+    private final Map<String, Map<String, Integer>> worldSalts = new ConcurrentHashMap<>();
+
+    public StructurePlacementGrid(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Grid hanya bisa dipercaya untuk overworld dengan generator bawaan
+     */
+    public boolean appliesTo(World world) {
+        return configManager.isPlacementPrefilterEnabled()
+                && world.getGenerator() == null
+                && world.getEnvironment() == World.Environment.NORMAL
+                && !getSalts(world).isEmpty();
+    }
+
+    /**
+     * Salt structure untuk world ini: world-settings.<world>.seed-*, lalu world-settings.default,
+     * lalu nilai vanilla. Dibaca sekali per world.
+     */
+    private Map<String, Integer> getSalts(World world) {
+        return worldSalts.computeIfAbsent(world.getName(), name -> {
+            YamlConfiguration spigot;
+            try {
+                spigot = Bukkit.spigot().getConfig();
+            } catch (RuntimeException | LinkageError e) {
+                return Collections.emptyMap();
+            }
+            if (spigot == null) {
+                return Collections.emptyMap();
+            }
+
+            Map<String, Integer> salts = new HashMap<>();
+            for (Placement placement : PLACEMENTS.values()) {
+                int fallback = spigot.getInt("world-settings.default." + placement.seedKey, placement.salt);
+                salts.put(placement.seedKey, spigot.getInt("world-settings." + name + "." + placement.seedKey, fallback));
+            }
+            return salts;
+        });
+    }
+
+    /**
+     * Apakah ada kandidat start structure dalam jangkauan chunk ini. Structure yang
+     * tidak dikenal (atau tanpa grid, seperti buried treasure) selalu lolos.
+     */
+    public boolean canContainStructure(World world, int chunkX, int chunkZ, String structureName) {
+        Placement placement = PLACEMENTS.get(structureName.toLowerCase());
+        if (placement == null) {
+            return true;
+        }
+
+        long seed = world.getSeed();
+        int salt = getSalts(world).getOrDefault(placement.seedKey, placement.salt);
+        int reach = placement.reach;
+        int minRegionX = Math.floorDiv(chunkX - reach, placement.spacing);
+        int maxRegionX = Math.floorDiv(chunkX + reach, placement.spacing);
+        int minRegionZ = Math.floorDiv(chunkZ - reach, placement.spacing);
+        int maxRegionZ = Math.floorDiv(chunkZ + reach, placement.spacing);
+        Random random = new Random();
+
+        for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+            for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+                placement.seedRegion(random, seed, salt, regionX, regionZ);
+                int startX = regionX * placement.spacing + placement.offset(random);
+                int startZ = regionZ * placement.spacing + placement.offset(random);
+
+                if (Math.abs(startX - chunkX) <= reach && Math.abs(startZ - chunkZ) <= reach) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Semua kandidat start (chunkX, chunkZ) di dalam kotak chunk (inklusif). Structure
+     * tanpa grid tidak bisa diprediksi dan menghasilkan list kosong.
+     */
+    public List<int[]> findStarts(World world, String structureName, int minChunkX, int minChunkZ,
+                                  int maxChunkX, int maxChunkZ) {
+        Placement placement = PLACEMENTS.get(structureName.toLowerCase());
+        if (placement == null) {
+            return Collections.emptyList();
+        }
+
+        long seed = world.getSeed();
+        int salt = getSalts(world).getOrDefault(placement.seedKey, placement.salt);
+        List<int[]> starts = new ArrayList<>();
+        Random random = new Random();
+
+        for (int regionX = Math.floorDiv(minChunkX, placement.spacing); regionX <= Math.floorDiv(maxChunkX, placement.spacing); regionX++) {
+            for (int regionZ = Math.floorDiv(minChunkZ, placement.spacing); regionZ <= Math.floorDiv(maxChunkZ, placement.spacing); regionZ++) {
+                placement.seedRegion(random, seed, salt, regionX, regionZ);
+                int startX = regionX * placement.spacing + placement.offset(random);
+                int startZ = regionZ * placement.spacing + placement.offset(random);
+
+                if (startX >= minChunkX && startX <= maxChunkX && startZ >= minChunkZ && startZ <= maxChunkZ) {
+                    starts.add(new int[]{startX, startZ});
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Jangkauan structure dari chunk start-nya dalam chunk, 0 jika tidak dikenal
+     */
+    public int getReach(String structureName) {
+        Placement placement = PLACEMENTS.get(structureName.toLowerCase());
+        return placement == null ? 0 : placement.reach;
+    }
+
+    private static class Placement {
+        final int spacing;
+        final int separation;
+        final int salt;
+        final boolean triangular;
+        final int reach;
+        final String seedKey;
+
+        Placement(int spacing, int separation, int salt, boolean triangular, int reach, String seedKey) {
+            this.spacing = spacing;
+            this.separation = separation;
+            this.salt = salt;
+            this.triangular = triangular;
+            this.reach = reach;
+            this.seedKey = seedKey;
+        }
+
+        void seedRegion(Random random, long seed, int salt, int regionX, int regionZ) {
+            // Sama dengan WorldgenRandom.setLargeFeatureWithSalt
+            random.setSeed(regionX * 341873128712L + regionZ * 132897987541L + seed + salt);
+        }
+
+        int offset(Random random) {
+            int range = spacing - separation;
+            return triangular ? (random.nextInt(range) + random.nextInt(range)) / 2 : random.nextInt(range);
+        }
+    }
+}
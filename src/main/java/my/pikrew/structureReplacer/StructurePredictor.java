@@ -0,0 +1,361 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Perencanaan replacement di depan player yang bergerak cepat. Kecepatan player
+ * diukur dari dua posisi berturut-turut, lalu koridor di depan jarak pandangnya
+ * diperiksa: kandidat start dari grid seed, biome dari biome provider vanilla
+ * (tanpa load chunk), dan template custom yang sudah di-parse dan diadaptasi ke
+ * biome itu. Saat chunk-nya benar-benar di-generate, job replacement tinggal
+ * menulis block.
+ *
+ * Posisi player dibaca di main thread; perencanaan jalan async, satu per satu.
+ * Rencana membawa template dan adaptasinya; job replacement mengambilnya lewat
+ * claimPlan, dan hit baru dihitung saat paste benar-benar memakai adaptasi itu.
+ *
+ * Perencanaan hanya memakai template yang sudah ada di cache. Template yang belum
+ * dibaca (termasuk konversi .yml ke .srs) diserahkan ke satu thread loader khusus,
+ * dan kandidatnya direncanakan lagi di interval berikutnya.
+ */
+public class StructurePredictor {
+
+    // Lompatan lebih cepat dari ini dianggap teleport, bukan perjalanan
+    private static final double MAX_SPEED = 100.0;
+
+    private final JavaPlugin plugin;
+    private final ConfigManager configManager;
+    private final StructurePlacementGrid placementGrid;
+    private final BiomeClassifier biomeClassifier;
+    private final StructureManager structureManager;
+    private final Supplier<List<Map.Entry<String, String>>> replacements;
+    private final ToIntFunction<String> biomeFamilies;
+
+    private final Map<UUID, Sample> lastSamples = new HashMap<>();
+    // Key world:vanilla:chunkX:chunkZ; rencana paling lama dibuang lebih dulu
+    private final Map<String, Plan> plans = Collections.synchronizedMap(new LinkedHashMap<String, Plan>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+            return size() > Math.max(1, configManager.getPredictionMaxPlans());
+        }
+    });
+    private final AtomicBoolean planning = new AtomicBoolean();
+    // Template yang sedang dibaca oleh loader
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private ExecutorService loader;
+
+    private BukkitTask task;
+
+    // Statistik untuk /sr status
+    private final AtomicLong preparedPlans = new AtomicLong();
+    private final AtomicLong rejectedPlans = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public StructurePredictor(JavaPlugin plugin, ConfigManager configManager, StructurePlacementGrid placementGrid,
+                              BiomeClassifier biomeClassifier, StructureManager structureManager,
+                              Supplier<List<Map.Entry<String, String>>> replacements, ToIntFunction<String> biomeFamilies) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.placementGrid = placementGrid;
+        this.biomeClassifier = biomeClassifier;
+        this.structureManager = structureManager;
+        this.replacements = replacements;
+        this.biomeFamilies = biomeFamilies;
+    }
+
+    public void start() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "StructureReplacer-TemplateLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (task == null) {
+            long interval = Math.max(1, configManager.getPredictionIntervalTicks());
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, interval, interval);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (loader != null) {
+            loader.shutdownNow();
+            loader = null;
+        }
+        loading.clear();
+    }
+
+    /**
+     * Ukur kecepatan semua player dan kumpulkan koridor di depan yang bergerak cukup cepat
+     */
+    private void tick() {
+        if (!configManager.isPredictionEnabled()) {
+            lastSamples.clear();
+            return;
+        }
+
+        int tick = Bukkit.getCurrentTick();
+        double minSpeed = configManager.getPredictionMinSpeed();
+        double lookahead = configManager.getPredictionLookaheadSeconds();
+        List<Corridor> corridors = new ArrayList<>();
+        Map<UUID, Sample> samples = new HashMap<>();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location location = player.getLocation();
+            Sample sample = new Sample(location.getWorld(), location.getX(), location.getZ(), tick);
+            Sample last = lastSamples.get(player.getUniqueId());
+            samples.put(player.getUniqueId(), sample);
+
+            if (last == null || last.world != sample.world || tick <= last.tick || !placementGrid.appliesTo(sample.world)) {
+                continue;
+            }
+
+            double seconds = (tick - last.tick) / 20.0;
+            double velocityX = (sample.x - last.x) / seconds;
+            double velocityZ = (sample.z - last.z) / seconds;
+            double speed = Math.sqrt(velocityX * velocityX + velocityZ * velocityZ);
+            if (speed < minSpeed || speed > MAX_SPEED) {
+                continue;
+            }
+
+            // Chunk dalam jarak pandang sudah ada; koridor mulai dari tepinya
+            double view = player.getViewDistance() * 16.0;
+            double startX = sample.x + velocityX / speed * view;
+            double startZ = sample.z + velocityZ / speed * view;
+            double endX = startX + velocityX * lookahead;
+            double endZ = startZ + velocityZ * lookahead;
+
+            corridors.add(new Corridor(sample.world,
+                    (int) Math.floor(Math.min(startX, endX) - view) >> 4, (int) Math.floor(Math.min(startZ, endZ) - view) >> 4,
+                    (int) Math.floor(Math.max(startX, endX) + view) >> 4, (int) Math.floor(Math.max(startZ, endZ) + view) >> 4));
+        }
+
+        lastSamples.clear();
+        lastSamples.putAll(samples);
+
+        // Perencanaan sebelumnya belum selesai, koridor berikutnya akan mencakup area ini lagi
+        if (corridors.isEmpty() || !planning.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<Map.Entry<String, String>> active = replacements.get();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                for (Corridor corridor : corridors) {
+                    plan(corridor, active);
+                }
+            } finally {
+                planning.set(false);
+            }
+        });
+    }
+
+    private void plan(Corridor corridor, List<Map.Entry<String, String>> active) {
+        World world = corridor.world;
+
+        for (Map.Entry<String, String> replacement : active) {
+            String vanillaStructure = replacement.getKey();
+            String customStructure = replacement.getValue();
+            if (!structureManager.structureExists(customStructure)) {
+                continue;
+            }
+
+            for (int[] start : placementGrid.findStarts(world, vanillaStructure, corridor.minChunkX, corridor.minChunkZ,
+                    corridor.maxChunkX, corridor.maxChunkZ)) {
+                String key = key(world, vanillaStructure, start[0], start[1]);
+                if (plans.containsKey(key)) {
+                    continue;
+                }
+
+                // Titik sample sama dengan ChunkScan.getCenterBiome()
+                Biome biome = world.vanillaBiomeProvider().getBiome(world, (start[0] << 4) + 8, 64, (start[1] << 4) + 8);
+                int allowed = biomeFamilies.applyAsInt(vanillaStructure);
+                if (allowed != 0 && (allowed & biomeClassifier.getFamilies(biome)) == 0) {
+                    // Disimpan juga supaya kandidat yang sama tidak dicek ulang setiap interval
+                    plans.put(key, new Plan(world, vanillaStructure, customStructure, start[0], start[1], null, null, null));
+                    rejectedPlans.incrementAndGet();
+                    continue;
+                }
+
+                StructureTemplate template = structureManager.getCachedTemplate(customStructure);
+                if (template == null) {
+                    // Belum di cache; tidak dibaca di sini supaya planner tidak memegang kunci baca
+                    requestTemplate(customStructure);
+                    continue;
+                }
+                StructureTemplate.Adaptation adaptation = structureManager.prepareAdaptation(template, biome);
+
+                plans.put(key, new Plan(world, vanillaStructure, customStructure, start[0], start[1], template, biome, adaptation));
+                preparedPlans.incrementAndGet();
+
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("Prepared " + customStructure + " for predicted " + vanillaStructure +
+                            " at chunk " + start[0] + ", " + start[1] + " (" + biome + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Minta loader membaca template ke cache, sekali per nama selama masih dibaca
+     */
+    private void requestTemplate(String name) {
+        ExecutorService current = loader;
+        if (current == null || !loading.add(name)) {
+            return;
+        }
+
+        try {
+            current.execute(() -> {
+                try {
+                    structureManager.getTemplate(name);
+                } catch (IOException e) {
+                    if (configManager.isDebugEnabled()) {
+                        plugin.getLogger().warning("Could not load " + name + " for prediction: " + e.getMessage());
+                    }
+                } finally {
+                    loading.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(name);
+        }
+    }
+
+    /**
+     * Dipanggil saat structure terdeteksi: ambil dan hapus rencana yang cocok, atau null.
+     * Rencana dengan template yang sudah diganti (reload/save) dibuang.
+     */
+    public Plan claimPlan(String vanillaStructure, String customStructure, Location location) {
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        int reach = placementGrid.getReach(vanillaStructure);
+
+        synchronized (plans) {
+            Iterator<Plan> iterator = plans.values().iterator();
+            while (iterator.hasNext()) {
+                Plan plan = iterator.next();
+                if (plan.template != null && plan.world == location.getWorld() && plan.vanillaStructure.equals(vanillaStructure)
+                        && Math.abs(plan.chunkX - chunkX) <= reach && Math.abs(plan.chunkZ - chunkZ) <= reach) {
+                    iterator.remove();
+                    boolean current = plan.customStructure.equals(customStructure)
+                            && plan.template == structureManager.getCachedTemplate(customStructure);
+                    return current ? plan : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dipanggil job saat paste memakai adaptasi dari rencana
+     */
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    private static String key(World world, String vanillaStructure, int chunkX, int chunkZ) {
+        return world.getName() + ":" + vanillaStructure + ":" + chunkX + ":" + chunkZ;
+    }
+
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    public long getPreparedPlans() {
+        return preparedPlans.get();
+    }
+
+    public long getRejectedPlans() {
+        return rejectedPlans.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    private static class Sample {
+        final World world;
+        final double x;
+        final double z;
+        final int tick;
+
+        Sample(World world, double x, double z, int tick) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+            this.tick = tick;
+        }
+    }
+
+    private static class Corridor {
+        final World world;
+        final int minChunkX;
+        final int minChunkZ;
+        final int maxChunkX;
+        final int maxChunkZ;
+
+        Corridor(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            this.world = world;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.maxChunkX = maxChunkX;
+            this.maxChunkZ = maxChunkZ;
+        }
+    }
+
+    /**
+     * Satu kandidat start. Template null berarti kandidat ditolak (biome tidak cocok).
+     */
+    static class Plan {
+        final World world;
+        final String vanillaStructure;
+        final String customStructure;
+        final int chunkX;
+        final int chunkZ;
+        final StructureTemplate template;
+        final Biome biome;
+        final StructureTemplate.Adaptation adaptation;
+
+        Plan(World world, String vanillaStructure, String customStructure, int chunkX, int chunkZ,
+             StructureTemplate template, Biome biome, StructureTemplate.Adaptation adaptation) {
+            this.world = world;
+            this.vanillaStructure = vanillaStructure;
+            this.customStructure = customStructure;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.template = template;
+            this.biome = biome;
+            this.adaptation = adaptation;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daftar instance structure yang sudah ditemukan di sesi ini. Village, mansion dan
+ * monument melintasi banyak chunk, sehingga deteksi per chunk bisa menemukan
+ * structure yang sama berkali-kali. Deteksi yang jatuh dalam jangkauan instance
+ * yang sudah ada digabung dan tidak membuat replacement baru.
+ *
+ * Heuristic memakai block penanda pertama sebagai origin, jadi dua origin dari
+ * village yang sama bisa berjauhan; jangkauan cluster karena itu mengikuti ukuran
+ * structure, bukan clear radius. Instance dilepas saat replacement-nya gagal atau
+ * dibatalkan, dan yang paling lama dibuang jika jumlahnya melewati MAX_INSTANCES.
+ *
+ * Semua varian village berbagi satu key: heuristic bisa mencocokkan beberapa varian
+ * di village yang sama, dan semuanya harus digabung menjadi satu replacement.
+ */
+public class StructureRegistry {
+
+    // Ukuran grid; radius cluster tidak boleh lebih besar dari ini supaya cukup cek 3x3 cell
+    public static final int CELL_SIZE = 128;
+
+    // Instance tertua dibuang lebih dulu; chunk-nya sudah tercatat di ledger
+    private static final int MAX_INSTANCES = 4096;
+
+    // Dipakai bersama oleh thread deteksi, semua akses lewat method synchronized
+    private final Map<String, List<Instance>> cells = new HashMap<>();
+    private final Deque<Instance> order = new ArrayDeque<>();
+
+    /**
+     * Daftarkan instance baru. Mengembalikan false jika sudah ada instance
+     * structure yang sama dalam clusterRadius block (jarak horizontal).
+     */
+    public synchronized boolean claim(String vanillaStructure, Location location, int clusterRadius) {
+        String prefix = prefix(vanillaStructure, location);
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        int cellX = Math.floorDiv(x, CELL_SIZE);
+        int cellZ = Math.floorDiv(z, CELL_SIZE);
+        int radius = Math.min(clusterRadius, CELL_SIZE);
+        long radiusSquared = (long) radius * radius;
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<Instance> instances = cells.get(prefix + (cellX + dx) + ":" + (cellZ + dz));
+                if (instances == null) {
+                    continue;
+                }
+
+                for (Instance instance : instances) {
+                    long distX = instance.x - x;
+                    long distZ = instance.z - z;
+                    if (distX * distX + distZ * distZ <= radiusSquared) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        Instance instance = new Instance(prefix + cellX + ":" + cellZ, x, z);
+        cells.computeIfAbsent(instance.cellKey, key -> new ArrayList<>()).add(instance);
+        order.addLast(instance);
+
+        if (order.size() > MAX_INSTANCES) {
+            remove(order.pollFirst());
+        }
+        return true;
+    }
+
+    /**
+     * Lepas instance yang pernah di-claim di lokasi ini, supaya bisa dideteksi lagi
+     */
+    public synchronized void release(String vanillaStructure, Location location) {
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        String cellKey = prefix(vanillaStructure, location) + Math.floorDiv(x, CELL_SIZE) + ":" + Math.floorDiv(z, CELL_SIZE);
+        List<Instance> instances = cells.get(cellKey);
+        if (instances == null) {
+            return;
+        }
+
+        for (Instance instance : instances) {
+            if (instance.x == x && instance.z == z) {
+                remove(instance);
+                order.remove(instance);
+                return;
+            }
+        }
+    }
+
+    private void remove(Instance instance) {
+        List<Instance> instances = cells.get(instance.cellKey);
+        if (instances != null) {
+            instances.remove(instance);
+            if (instances.isEmpty()) {
+                cells.remove(instance.cellKey);
+            }
+        }
+    }
+
+    private static String prefix(String vanillaStructure, Location location) {
+        return location.getWorld().getName() + ":" + family(vanillaStructure) + ":";
+    }
+
+    private static String family(String vanillaStructure) {
+        return vanillaStructure.startsWith("village") ? "village" : vanillaStructure;
+    }
+
+    public synchronized int size() {
+        return order.size();
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        order.clear();
+    }
+
+    private static class Instance {
+        final String cellKey;
+        final int x;
+        final int z;
+
+        Instance(String cellKey, int x, int z) {
+            this.cellKey = cellKey;
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
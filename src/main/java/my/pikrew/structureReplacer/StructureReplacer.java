@@ -24,6 +24,7 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
     private StructureManager structureManager;
     private ConfigManager configManager;
     private StructureListener structureListener;
+    private BiomeClassifier biomeClassifier;
 
     @Override
     public void onEnable() {
@@ -31,11 +32,16 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
         this.selectionManager = new SelectionManager();
         this.configManager = new ConfigManager(this);
         this.structureManager = new StructureManager(this);
-        this.structureListener = new StructureListener(this, structureManager, configManager);
 
-        // Load config
+        // Load config sebelum listener dibuat supaya replacements dan pool async memakai setting yang benar
         configManager.loadConfig();
 
+        // Klasifikasi biome dibangun sekali dari registry dan dipakai bersama
+        this.biomeClassifier = new BiomeClassifier(this);
+        biomeClassifier.reload(configManager);
+
+        this.structureListener = new StructureListener(this, structureManager, configManager, biomeClassifier);
+
         // Register events
         getServer().getPluginManager().registerEvents(this.structureListener, this);
         getServer().getPluginManager().registerEvents(this.selectionManager, this);
@@ -49,6 +55,9 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
 
     @Override
     public void onDisable() {
+        if (structureListener != null) {
+            structureListener.shutdown();
+        }
         configManager.saveConfig();
         getLogger().info("StructureReplacer plugin has been disabled!");
     }
@@ -109,6 +118,24 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
                 reloadPlugin(player);
                 break;
 
+            case "status":
+                showStatus(player);
+                break;
+
+            case "pack":
+                buildPack(player);
+                break;
+
+            case "stats":
+                if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                    structureListener.getDetectorStats().clear();
+                    structureListener.getColumnSampler().reset();
+                    player.sendMessage("§aStatistik detector di-reset.");
+                    return true;
+                }
+                showStats(player);
+                break;
+
             default:
                 showHelp(player);
                 break;
@@ -126,6 +153,9 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
         player.sendMessage("§e/sr listreplace §7- Lihat daftar penggantian structure");
         player.sendMessage("§e/sr remove <vanilla> §7- Hapus penggantian structure");
         player.sendMessage("§e/sr reload §7- Reload plugin dan config");
+        player.sendMessage("§e/sr status §7- Lihat antrian dan pemakaian budget replacement");
+        player.sendMessage("§e/sr stats [reset] §7- Lihat urutan detector yang dipelajari");
+        player.sendMessage("§e/sr pack §7- Gabungkan semua structure ke satu structure pack");
     }
 
     private void saveStructure(Player player, String name) {
@@ -196,12 +226,99 @@ public class StructureReplacer extends JavaPlugin implements Listener, CommandEx
         }
     }
 
+    private void buildPack(Player player) {
+        try {
+            int count = structureManager.buildPack();
+            StructurePack pack = structureManager.getPack();
+            File packFile = pack != null ? pack.getFile() : structureManager.getPackFile();
+            player.sendMessage("§aStructure pack berisi " + count + " structure (" + packFile.length() / 1024 +
+                    " KB) disimpan ke §f" + packFile.getPath());
+            player.sendMessage("§eServer lain yang memakai pack ini perlu /sr reload.");
+        } catch (IOException e) {
+            player.sendMessage("§cGagal membuat structure pack: " + e.getMessage());
+            getLogger().log(Level.SEVERE, "Failed to build structure pack", e);
+        }
+    }
+
     private void reloadPlugin(Player player) {
         configManager.loadConfig();
+        biomeClassifier.reload(configManager);
+        structureManager.refreshStructureIndex();
         structureListener.reloadReplacements();
         player.sendMessage("§aPlugin berhasil di-reload!");
     }
 
+    private void showStatus(Player player) {
+        ReplacementScheduler scheduler = structureListener.getReplacementScheduler();
+        double budget = configManager.getTickBudgetMillis();
+
+        player.sendMessage("§6=== Replacement Status ===");
+        player.sendMessage("§eAntrian: §f" + scheduler.getPendingCount() + " §7| §eAktif: §f" +
+                scheduler.getActiveCount() + "/" + configManager.getMaxConcurrentReplacements());
+        player.sendMessage(String.format("§eBudget: §f%.2f ms/tick §7| §eTick terakhir: §f%.2f ms (%d langkah)",
+                budget, scheduler.getLastTickMillis(), scheduler.getLastTickSteps()));
+        player.sendMessage(String.format("§eRata-rata: §f%.2f ms §7(%.0f%% budget)",
+                scheduler.getAverageTickMillis(), budget > 0 ? scheduler.getAverageTickMillis() / budget * 100 : 0));
+        player.sendMessage("§eSelesai: §a" + scheduler.getCompletedJobs() + " §7| §eGagal: §c" + scheduler.getFailedJobs());
+        player.sendMessage("§eMenunggu chunk: §f" + scheduler.getWaitingForChunksCount() + " §7| §eDitahan ticket: §f" +
+                scheduler.getTicketedJobCount() + " §7| §eDibatalkan: §f" + scheduler.getCancelledJobs() +
+                " §7| §eMenyerah: §f" + scheduler.getAbandonedJobs());
+
+        ChunkWorkQueue chunkQueue = structureListener.getChunkQueue();
+        player.sendMessage("§6=== Chunk Queue §7(" + configManager.getQueueOverflowPolicy().name().toLowerCase() + ") §6===");
+        player.sendMessage("§eKedalaman: §f" + chunkQueue.getDepth() + "/" + configManager.getQueueMaxSize() +
+                " §7| §eDiproses: §f" + chunkQueue.getDrainedChunks());
+        player.sendMessage(String.format("§eTunggu rata-rata: §f%.1f tick §7| §eTerlama: §f%d tick",
+                chunkQueue.getAverageWaitTicks(), chunkQueue.getMaxWaitTicks()));
+        player.sendMessage("§eDibuang: §f" + chunkQueue.getDroppedChunks() + " §7| §eDitunda ke disk: §f" +
+                chunkQueue.getDeferredChunks() + " §7(" + chunkQueue.getDeferredCount() + " menunggu) §7| §eBlock: §f" +
+                chunkQueue.getBlockedDrains());
+
+        if (configManager.isPredictionEnabled()) {
+            StructurePredictor predictor = structureListener.getPredictor();
+            player.sendMessage("§6=== Prediksi ===");
+            player.sendMessage("§eRencana: §f" + predictor.getPlanCount() + " §7| §eDisiapkan: §f" +
+                    predictor.getPreparedPlans() + " §7| §eDitolak biome: §f" + predictor.getRejectedPlans() +
+                    " §7| §eTerpakai: §a" + predictor.getHits());
+        }
+
+        for (String job : scheduler.describeActive()) {
+            player.sendMessage("§7- " + job);
+        }
+    }
+
+    private void showStats(Player player) {
+        DetectorStats stats = structureListener.getDetectorStats();
+        HeuristicStructureDetector heuristicDetector = structureListener.getHeuristicDetector();
+
+        player.sendMessage("§6=== Detector Ordering ===" + (configManager.isAdaptiveOrderingEnabled() ? "" : " §7(adaptive off)"));
+        int position = 1;
+        for (Map.Entry<String, String> replacement : structureListener.getReplacementOrder()) {
+            String structure = replacement.getKey();
+            player.sendMessage(formatStats(position++ + ". §e" + structure, stats.get(StructureListener.detectorKey(structure))));
+
+            for (DetectionSignature.Requirement requirement : heuristicDetector.getPredicateOrder(structure)) {
+                String key = SignatureMatcher.predicateKey(structure.toLowerCase(), requirement);
+                player.sendMessage(formatStats("   §7- " + requirement, stats.get(key)));
+            }
+        }
+
+        ColumnSampler sampler = structureListener.getColumnSampler();
+        player.sendMessage("§6=== Column Sampling §7(" + configManager.getColumnSamplingMode().name().toLowerCase() + ", " +
+                configManager.getColumnSampleSize() + " kolom) §6===");
+        player.sendMessage(String.format("§eDitolak: §f%d/%d chunk §7| §eFalse negative: §f%d/%d §7(%.1f%%)",
+                sampler.getRejectedCount(), sampler.getSampledCount(), sampler.getFalseNegativeCount(),
+                sampler.getConfirmedCount(), sampler.getFalseNegativeRate() * 100));
+    }
+
+    private String formatStats(String label, DetectorStats.Entry entry) {
+        if (entry.evaluations == 0) {
+            return label + " §8(belum ada data)";
+        }
+        return String.format("%s §f%.1f µs §7| §ftolak %.0f%% §7| §f%d sampel", label,
+                entry.getAverageMicros(), entry.getRejectionRate() * 100, entry.evaluations);
+    }
+
     // Getters for managers
     public SelectionManager getSelectionManager() {
         return selectionManager;
@@ -0,0 +1,103 @@
+package my.pikrew.structureReplacer;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Isi file structure yang sudah di-parse ke array, supaya paste bisa dicicil
+ * beberapa block per tick tanpa membaca ulang file. Dibaca dari format biner
+ * (StructureFile) atau dari YAML lama.
+ */
+public class StructureTemplate {
+
+    public final String name;
+    public final int width;
+    public final int height;
+    public final int length;
+    public final long created;
+
+    // Satu entry per block, diindeks sama di semua array
+    public final int[] x;
+    public final int[] y;
+    public final int[] z;
+    // null jika nama material tidak dikenal di versi server ini
+    public final Material[] materials;
+    public final String[] materialNames;
+    public final String[] blockData;
+    public final String[] categories;
+    public final String[] roles;
+
+    // Hasil adaptasi per material mapping biome (instance mapping-nya statis, jadi cukup identity)
+    private final Map<Map<Material, Material>, Adaptation> adaptations =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    StructureTemplate(String name, int width, int height, int length, long created, int blockCount) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        this.created = created;
+        this.x = new int[blockCount];
+        this.y = new int[blockCount];
+        this.z = new int[blockCount];
+        this.materials = new Material[blockCount];
+        this.materialNames = new String[blockCount];
+        this.blockData = new String[blockCount];
+        this.categories = new String[blockCount];
+        this.roles = new String[blockCount];
+    }
+
+    public static StructureTemplate fromYaml(String name, YamlConfiguration config) {
+        List<Map<?, ?>> blocks = config.getMapList("blocks");
+        StructureTemplate template = new StructureTemplate(name, config.getInt("width", 10),
+                config.getInt("height", 10), config.getInt("length", 10), config.getLong("created", 0), blocks.size());
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Map<?, ?> blockInfo = blocks.get(i);
+            template.x[i] = (Integer) blockInfo.get("x");
+            template.y[i] = (Integer) blockInfo.get("y");
+            template.z[i] = (Integer) blockInfo.get("z");
+
+            String materialName = (String) blockInfo.get("material");
+            template.materialNames[i] = materialName;
+            template.materials[i] = Material.matchMaterial(materialName);
+            template.blockData[i] = (String) blockInfo.get("data");
+            template.categories[i] = (String) blockInfo.get("category");
+            template.roles[i] = (String) blockInfo.get("structural_role");
+        }
+
+        return template;
+    }
+
+    public int getBlockCount() {
+        return x.length;
+    }
+
+    /**
+     * Adaptasi untuk mapping ini, dibuat sekali lalu dipakai ulang oleh semua paste
+     */
+    public Adaptation getAdaptation(Map<Material, Material> mapping, Function<Map<Material, Material>, Adaptation> factory) {
+        return adaptations.computeIfAbsent(mapping, factory);
+    }
+
+    /**
+     * Material dan BlockData yang sudah diadaptasi ke satu biome, diindeks sama dengan template.
+     * Material null berarti block dilewati; BlockData null berarti cukup setType.
+     */
+    public static class Adaptation {
+        public final Material[] materials;
+        public final BlockData[] blockData;
+
+        public Adaptation(int blockCount) {
+            this.materials = new Material[blockCount];
+            this.blockData = new BlockData[blockCount];
+        }
+    }
+}
@@ -13,13 +13,15 @@ public class TerrainAdapter {
 
     private final JavaPlugin plugin;
     private final ConfigManager configManager;
+    private final GroundHeightService groundHeights;
+    private final BiomeClassifier biomeClassifier;
 
     // Material palettes untuk berbagai biome
-    private static final Map<String, MaterialPalette> BIOME_PALETTES = new HashMap<>();
+    private static final Map<BiomeFamily, MaterialPalette> BIOME_PALETTES = new EnumMap<>(BiomeFamily.class);
 
     static {
         // Plains palette
-        BIOME_PALETTES.put("PLAINS", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.PLAINS, new MaterialPalette()
                 .addFoundation(Material.STONE, Material.COBBLESTONE, Material.MOSSY_COBBLESTONE)
                 .addWall(Material.OAK_PLANKS, Material.COBBLESTONE, Material.STONE_BRICKS)
                 .addRoof(Material.OAK_PLANKS, Material.DARK_OAK_PLANKS, Material.SPRUCE_PLANKS)
@@ -28,7 +30,7 @@ public class TerrainAdapter {
         );
 
         // Desert palette
-        BIOME_PALETTES.put("DESERT", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.DESERT, new MaterialPalette()
                 .addFoundation(Material.SANDSTONE, Material.SMOOTH_SANDSTONE, Material.CUT_SANDSTONE)
                 .addWall(Material.SANDSTONE, Material.SMOOTH_SANDSTONE, Material.TERRACOTTA)
                 .addRoof(Material.SANDSTONE_SLAB, Material.SMOOTH_SANDSTONE_SLAB, Material.RED_TERRACOTTA)
@@ -37,7 +39,7 @@ public class TerrainAdapter {
         );
 
         // Taiga palette
-        BIOME_PALETTES.put("TAIGA", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.TAIGA, new MaterialPalette()
                 .addFoundation(Material.STONE, Material.COBBLESTONE, Material.MOSSY_COBBLESTONE)
                 .addWall(Material.SPRUCE_PLANKS, Material.SPRUCE_LOG, Material.COBBLESTONE)
                 .addRoof(Material.SPRUCE_PLANKS, Material.DARK_OAK_PLANKS, Material.SPRUCE_LOG)
@@ -46,7 +48,7 @@ public class TerrainAdapter {
         );
 
         // Snowy palette
-        BIOME_PALETTES.put("SNOWY", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.SNOWY, new MaterialPalette()
                 .addFoundation(Material.COBBLESTONE, Material.STONE, Material.STONE_BRICKS)
                 .addWall(Material.SPRUCE_PLANKS, Material.SPRUCE_LOG, Material.COBBLESTONE)
                 .addRoof(Material.SPRUCE_PLANKS, Material.SPRUCE_STAIRS, Material.SNOW_BLOCK)
@@ -55,7 +57,7 @@ public class TerrainAdapter {
         );
 
         // Savanna palette
-        BIOME_PALETTES.put("SAVANNA", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.SAVANNA, new MaterialPalette()
                 .addFoundation(Material.STONE, Material.COBBLESTONE, Material.RED_SANDSTONE)
                 .addWall(Material.ACACIA_PLANKS, Material.ACACIA_LOG, Material.TERRACOTTA)
                 .addRoof(Material.ACACIA_PLANKS, Material.RED_TERRACOTTA, Material.ORANGE_TERRACOTTA)
@@ -64,7 +66,7 @@ public class TerrainAdapter {
         );
 
         // Jungle palette
-        BIOME_PALETTES.put("JUNGLE", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.JUNGLE, new MaterialPalette()
                 .addFoundation(Material.MOSSY_COBBLESTONE, Material.MOSSY_STONE_BRICKS, Material.COBBLESTONE)
                 .addWall(Material.JUNGLE_PLANKS, Material.JUNGLE_LOG, Material.MOSSY_COBBLESTONE)
                 .addRoof(Material.JUNGLE_PLANKS, Material.JUNGLE_LEAVES, Material.MOSSY_COBBLESTONE)
@@ -73,7 +75,7 @@ public class TerrainAdapter {
         );
 
         // Swamp palette
-        BIOME_PALETTES.put("SWAMP", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.SWAMP, new MaterialPalette()
                 .addFoundation(Material.COBBLESTONE, Material.MOSSY_COBBLESTONE, Material.MUD)
                 .addWall(Material.DARK_OAK_PLANKS, Material.DARK_OAK_LOG, Material.MOSSY_COBBLESTONE)
                 .addRoof(Material.DARK_OAK_PLANKS, Material.DARK_OAK_LOG, Material.MUSHROOM_STEM)
@@ -82,7 +84,7 @@ public class TerrainAdapter {
         );
 
         // Ocean palette
-        BIOME_PALETTES.put("OCEAN", new MaterialPalette()
+        BIOME_PALETTES.put(BiomeFamily.OCEAN, new MaterialPalette()
                 .addFoundation(Material.PRISMARINE, Material.PRISMARINE_BRICKS, Material.DARK_PRISMARINE)
                 .addWall(Material.PRISMARINE, Material.PRISMARINE_BRICKS, Material.SEA_LANTERN)
                 .addRoof(Material.PRISMARINE_BRICKS, Material.DARK_PRISMARINE, Material.SEA_LANTERN)
@@ -91,9 +93,12 @@ public class TerrainAdapter {
         );
     }
 
-    public TerrainAdapter(JavaPlugin plugin, ConfigManager configManager) {
+    public TerrainAdapter(JavaPlugin plugin, ConfigManager configManager, GroundHeightService groundHeights,
+                          BiomeClassifier biomeClassifier) {
         this.plugin = plugin;
         this.configManager = configManager;
+        this.groundHeights = groundHeights;
+        this.biomeClassifier = biomeClassifier;
     }
 
     /**
@@ -207,7 +212,7 @@ public class TerrainAdapter {
             z += Math.sin(angle) * (0.8 + random.nextDouble() * 0.4);
 
             Location pathLoc = center.clone().add(x, 0, z);
-            pathLoc.setY(findGroundLevel(pathLoc));
+            pathLoc.setY(groundHeights.getGroundLevel(pathLoc));
 
             // Buat path dengan lebar bervariasi
             int width = random.nextInt(2) + 1;
@@ -244,7 +249,7 @@ public class TerrainAdapter {
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
                 Location loc = center.clone().add(x, 0, z);
-                loc.setY(findGroundLevel(loc));
+                loc.setY(groundHeights.getGroundLevel(loc));
 
                 int distance = (int) Math.sqrt(x * x + z * z);
 
@@ -284,7 +289,7 @@ public class TerrainAdapter {
             int x = (int) (center.getX() + radius * Math.cos(radians));
             int z = (int) (center.getZ() + radius * Math.sin(radians));
 
-            elevations.add(findGroundLevel(new Location(world, x, 0, z)));
+            elevations.add(groundHeights.getGroundLevel(world, x, z));
         }
 
         // Jika ada variasi elevasi yang besar, buat terracing
@@ -347,7 +352,7 @@ public class TerrainAdapter {
         for (int x = -radius; x <= radius; x += 2) {
             for (int z = -radius; z <= radius; z += 2) {
                 Location loc = center.clone().add(x, 0, z);
-                totalHeight += findGroundLevel(loc);
+                totalHeight += groundHeights.getGroundLevel(loc);
                 count++;
             }
         }
@@ -357,7 +362,7 @@ public class TerrainAdapter {
 
     private void smoothTerrainAtLocation(Location location, int targetLevel, int distance, int maxRadius) {
         World world = location.getWorld();
-        int currentGroundLevel = findGroundLevel(location);
+        int currentGroundLevel = groundHeights.getGroundLevel(location);
 
         // Smooth factor berdasarkan jarak (lebih halus di pinggir)
         double smoothFactor = 1.0 - ((double) distance / maxRadius);
@@ -389,35 +394,17 @@ public class TerrainAdapter {
         }
     }
 
-    private int findGroundLevel(Location location) {
-        World world = location.getWorld();
-        int x = location.getBlockX();
-        int z = location.getBlockZ();
-
-        for (int y = world.getMaxHeight() - 1; y >= world.getMinHeight(); y--) {
-            Material blockType = world.getBlockAt(x, y, z).getType();
-            Material blockAbove = world.getBlockAt(x, y + 1, z).getType();
-
-            if (blockType.isSolid() && (blockAbove == Material.AIR || !blockAbove.isSolid())) {
-                return y;
-            }
-        }
-
-        return 64; // Default sea level
-    }
-
     private MaterialPalette getBiomePalette(Biome biome) {
-        String biomeName = biome.toString().toUpperCase();
-
-        // Cari palette yang cocok
-        for (String key : BIOME_PALETTES.keySet()) {
-            if (biomeName.contains(key)) {
-                return BIOME_PALETTES.get(key);
-            }
-        }
-
         // Default ke plains jika tidak ada yang cocok
-        return BIOME_PALETTES.get("PLAINS");
+        return biomeClassifier.select(biome, BIOME_PALETTES, BIOME_PALETTES.get(BiomeFamily.PLAINS));
+    }
+
+    /**
+     * Jarak horizontal terjauh yang dibaca atau diubah adaptStructureToTerrain dari titik
+     * paste: vegetasi sampai radius + 5, path sampai sekitar 24 langkah ditambah lebar path
+     */
+    public int getFootprintRadius(String structureName) {
+        return Math.max(getStructureRadius(structureName) + 5, 32);
     }
 
     private int getStructureRadius(String structureName) {